@@ -0,0 +1,61 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.dto.MemberDto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* One /members page serialized in each format. Allocation per operation: gc profiler (gc.alloc.rate.norm).
+ * pageImpl : Page<MemberDto> through the ObjectMapper (default response)
+ * compact  : CompactPageWriter (format=compact)
+ * Response sizes are printed once per trial. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PageFormatBenchmark {
+
+	@Param({"5", "100", "2000"})
+	int size;
+
+	ObjectMapper objectMapper;
+	Page<MemberDto> page;
+	ByteArrayOutputStream out;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		objectMapper = new ObjectMapper();
+		List<MemberDto> content = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			content.add(new MemberDto((long) i, "member" + i, i % 2 == 0 ? "teamA" : "teamB"));
+		}
+		page = new PageImpl<>(content, PageRequest.of(1, size), 100_000);
+		out = new ByteArrayOutputStream(size * 128);
+
+		System.out.printf("%nbytes per page (size=%d): pageImpl=%d, compact=%d%n", size, pageImpl(), compact());
+	}
+
+	@Benchmark
+	public int pageImpl() throws IOException {
+		out.reset();
+		objectMapper.writeValue(out, page);
+		return out.size();
+	}
+
+	@Benchmark
+	public int compact() throws IOException {
+		out.reset();
+		try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+			CompactPageWriter.write(generator, page);
+		}
+		return out.size();
+	}
+}
@@ -0,0 +1,69 @@
+package study.datajpa.entity;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import org.springframework.data.jpa.mapping.JpaMetamodelMappingContext;
+import org.springframework.data.mapping.context.PersistentEntities;
+import study.datajpa.repository.BenchmarkContext;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/* Audit callbacks only, without the database.
+ * baseline: AuditingEntityListener with the original auditor (UUID.randomUUID, shared SecureRandom)
+ * handler : AuditListener, fast=false - AuditingHandler (reflection, LocalDateTime.now(), per call)
+ * fast    : AuditListener, fast=true - direct setters, AuditClock */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuditingBenchmark {
+
+	@Param({"baseline", "handler", "fast"})
+	String mode;
+
+	ConfigurableApplicationContext context;
+	Consumer<Object> touchForCreate;
+	Consumer<Object> touchForUpdate;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start("auditing.fast=" + "fast".equals(mode));
+		if ("baseline".equals(mode)) {
+			AuditingHandler handler = new AuditingHandler(
+					PersistentEntities.of(context.getBean(JpaMetamodelMappingContext.class)));
+			handler.setAuditorAware(() -> Optional.of(UUID.randomUUID().toString()));
+			AuditingEntityListener listener = new AuditingEntityListener();
+			listener.setAuditingHandler(() -> handler);
+			touchForCreate = listener::touchForCreate;
+			touchForUpdate = listener::touchForUpdate;
+		} else {
+			AuditListener listener = context.getBean(AuditListener.class);
+			touchForCreate = listener::touchForCreate;
+			touchForUpdate = listener::touchForUpdate;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Member create() {
+		Member member = new Member("member", 10);
+		touchForCreate.accept(member);
+		return member;
+	}
+
+	@Benchmark
+	public Member createAndUpdate() {
+		Member member = new Member("member", 10);
+		touchForCreate.accept(member);
+		touchForUpdate.accept(member);
+		return member;
+	}
+}
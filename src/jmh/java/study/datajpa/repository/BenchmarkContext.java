@@ -0,0 +1,27 @@
+package study.datajpa.repository;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.DataJpaApplication;
+
+/* Boots the JPA layer against an in-memory H2 for benchmarks. No web server, no SQL logging. */
+public final class BenchmarkContext {
+
+	private BenchmarkContext() {
+	}
+
+	public static ConfigurableApplicationContext start(String... properties) {
+		String[] defaults = {
+				"spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+				"spring.jpa.properties.hibernate.format_sql=false",
+				"logging.level.org.hibernate.SQL=warn",
+				"decorator.datasource.p6spy.enable-logging=false"
+		};
+		return new SpringApplicationBuilder(DataJpaApplication.class)
+				.web(WebApplicationType.NONE)
+				.properties(defaults)
+				.properties(properties)
+				.run();
+	}
+}
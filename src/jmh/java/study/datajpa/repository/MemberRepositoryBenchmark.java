@@ -0,0 +1,158 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* Fetch strategies side by side.
+ * Every invocation runs in its own read-only transaction, so each one starts with an empty persistence context.
+ * ./gradlew jmh -> throughput (ops/s) and gc.alloc.rate.norm (bytes/op) per path and data set size */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberRepositoryBenchmark {
+
+	private static final int AGES = 50;
+	private static final PageRequest PAGE = PageRequest.of(0, 20, Sort.by("username"));
+
+	@Param({"100", "1000", "10000"})
+	int memberCount;
+
+	@Param({"10"})
+	int teamCount;
+
+	ConfigurableApplicationContext context;
+	MemberRepository memberRepository;
+	MemberQueryRepository memberQueryRepository;
+	TransactionTemplate readOnly;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start();
+		populate(context, memberCount, teamCount);
+		memberRepository = context.getBean(MemberRepository.class);
+		memberQueryRepository = context.getBean(MemberQueryRepository.class);
+		readOnly = readOnly(context);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public int fetchJoin() {
+		return readOnly.execute(status -> touchTeams(memberRepository.findMemberFetchJoin()));
+	}
+
+	@Benchmark
+	public int entityGraph() {
+		return readOnly.execute(status -> touchTeams(memberRepository.findMemberEntityGraph()));
+	}
+
+	@Benchmark
+	public int findAllEntityGraph() {
+		return readOnly.execute(status -> touchTeams(memberRepository.findAll()));
+	}
+
+	// lazy loading as configured (default_batch_fetch_size 100): 1 + N(distinct teams) / 100 queries
+	@Benchmark
+	public int lazyBatchFetch() {
+		return readOnly.execute(status -> touchTeams(memberQueryRepository.findAllMembers()));
+	}
+
+	// plain lazy loading, batch fetching off: 1 + N(distinct teams) queries
+	@Benchmark
+	public int lazyNPlusOne(NoBatchFetch noBatchFetch) {
+		return noBatchFetch.readOnly.execute(status -> touchTeams(noBatchFetch.memberQueryRepository.findAllMembers()));
+	}
+
+	// content + count query
+	@Benchmark
+	public int page() {
+		return readOnly.execute(status -> memberRepository.findByAge(AGES / 2, PAGE).getNumberOfElements());
+	}
+
+	// content only (limit + 1)
+	@Benchmark
+	public int slice() {
+		return readOnly.execute(status -> memberRepository.findAsSliceByAge(AGES / 2, PAGE).getNumberOfElements());
+	}
+
+	@Benchmark
+	public int dtoProjection() {
+		return readOnly.execute(status -> {
+			int length = 0;
+			for (MemberDto dto : memberRepository.findMemberDto()) {
+				length += dto.getTeamName().length();
+			}
+			return length;
+		});
+	}
+
+	// same data set in a context of its own, one proxy initialization per team
+	@State(Scope.Benchmark)
+	public static class NoBatchFetch {
+
+		ConfigurableApplicationContext context;
+		MemberQueryRepository memberQueryRepository;
+		TransactionTemplate readOnly;
+
+		@Setup(Level.Trial)
+		public void setUp(MemberRepositoryBenchmark benchmark) {
+			context = BenchmarkContext.start(
+					"spring.datasource.url=jdbc:h2:mem:bench-no-batch-fetch;DB_CLOSE_DELAY=-1",
+					"spring.jpa.properties.hibernate.default_batch_fetch_size=1");
+			populate(context, benchmark.memberCount, benchmark.teamCount);
+			memberQueryRepository = context.getBean(MemberQueryRepository.class);
+			readOnly = readOnly(context);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			context.close();
+		}
+	}
+
+	private static void populate(ConfigurableApplicationContext context, int memberCount, int teamCount) {
+		MemberRepository memberRepository = context.getBean(MemberRepository.class);
+		TeamRepository teamRepository = context.getBean(TeamRepository.class);
+
+		TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		tx.executeWithoutResult(status -> {
+			List<Team> teams = new ArrayList<>();
+			for (int i = 0; i < teamCount; i++) {
+				teams.add(teamRepository.save(new Team("team" + i)));
+			}
+			List<Member> members = new ArrayList<>();
+			for (int i = 0; i < memberCount; i++) {
+				members.add(new Member("member" + i, i % AGES, teams.get(i % teamCount)));
+			}
+			memberRepository.saveAllBatched(members, 500);
+		});
+	}
+
+	private static TransactionTemplate readOnly(ConfigurableApplicationContext context) {
+		TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnly.setReadOnly(true);
+		return readOnly;
+	}
+
+	private static int touchTeams(List<Member> members) {
+		int length = 0;
+		for (Member member : members) {
+			length += member.getTeam().getName().length();
+		}
+		return length;
+	}
+}
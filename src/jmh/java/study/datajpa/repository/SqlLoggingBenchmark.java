@@ -0,0 +1,65 @@
+package study.datajpa.repository;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+
+import java.util.concurrent.TimeUnit;
+
+/* One primary-key lookup under each SQL logging setup.
+ * legacy   : p6spy log line + org.hibernate.SQL debug + format_sql (previous application.yml)
+ * off      : no SQL logging
+ * slowOnly : SamplingSqlLogger, only statements >= slow threshold (default)
+ * sampled  : SamplingSqlLogger, 1% of statements
+ * params   : SamplingSqlLogger, 1% of statements with bound values */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SqlLoggingBenchmark {
+
+	@Param({"legacy", "off", "slowOnly", "sampled", "params"})
+	String mode;
+
+	ConfigurableApplicationContext context;
+	MemberRepository memberRepository;
+	Long memberId;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkContext.start(properties(mode));
+		memberRepository = context.getBean(MemberRepository.class);
+		memberId = memberRepository.save(new Member("member1", 10)).getId();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public MemberDto findById() {
+		return memberRepository.findMemberDtoById(memberId).get();
+	}
+
+	private static String[] properties(String mode) {
+		switch (mode) {
+			case "legacy":
+				return new String[]{
+						"sql-log.enabled=false",
+						"decorator.datasource.p6spy.enable-logging=true",
+						"logging.level.org.hibernate.SQL=debug",
+						"spring.jpa.properties.hibernate.format_sql=true"};
+			case "off":
+				return new String[]{"sql-log.enabled=false"};
+			case "slowOnly":
+				return new String[]{"sql-log.sample-rate=0"};
+			case "sampled":
+				return new String[]{"sql-log.sample-rate=0.01"};
+			case "params":
+				return new String[]{"sql-log.sample-rate=0.01", "sql-log.capture-parameters=true"};
+			default:
+				throw new IllegalArgumentException(mode);
+		}
+	}
+}
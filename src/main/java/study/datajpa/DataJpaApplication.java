@@ -5,10 +5,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.retry.annotation.EnableRetry;
 
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
 
+@EnableRetry
 @EnableJpaAuditing
 @SpringBootApplication
 public class DataJpaApplication {
@@ -19,6 +22,12 @@ public class DataJpaApplication {
 
 	@Bean
 	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString());
+		// random id without UUID.randomUUID(): SecureRandom is shared and can block
+		return () -> {
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			long msb = (random.nextLong() & ~0xF000L) | 0x4000L; // version 4
+			long lsb = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48); // IETF variant
+			return Optional.of(new UUID(msb, lsb).toString());
+		};
 	}
 }
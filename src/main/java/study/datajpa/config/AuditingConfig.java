@@ -0,0 +1,20 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.entity.AuditClock;
+
+import java.time.Duration;
+
+// auditing.fast=true: audit timestamps come from AuditClock, refreshed every auditing.clock-resolution
+@Configuration
+public class AuditingConfig {
+
+    // closed with the context (inferred destroy method), each context has its own ticker
+    @Bean
+    public AuditClock auditClock(@Value("${auditing.fast:false}") boolean fast,
+                                 @Value("${auditing.clock-resolution:10ms}") Duration clockResolution) {
+        return fast ? AuditClock.ticking(clockResolution) : AuditClock.system();
+    }
+}
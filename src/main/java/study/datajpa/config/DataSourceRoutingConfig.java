@@ -0,0 +1,75 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// datasource.routing.enabled=true: @Transactional(readOnly = true) work goes to the replicas
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("datasource.routing")
+    public RoutingProperties routingProperties() {
+        return new RoutingProperties();
+    }
+
+    // spring.datasource.* and spring.datasource.hikari.* (pool size, timeouts) as without routing. Closed by the router
+    @Bean(destroyMethod = "")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties primaryProperties) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primary, DataSourceProperties primaryProperties,
+                                 RoutingProperties routingProperties) {
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < routingProperties.getReplicas().size(); i++) {
+            Replica replica = routingProperties.getReplicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setDriverClassName(primaryProperties.getDriverClassName());
+            dataSource.setJdbcUrl(replica.getUrl());
+            dataSource.setUsername(replica.getUsername());
+            dataSource.setPassword(replica.getPassword());
+            dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            replicas.add(dataSource);
+        }
+
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas));
+    }
+
+    @Getter @Setter
+    public static class RoutingProperties {
+        private boolean enabled;
+        private List<Replica> replicas = new ArrayList<>();
+    }
+
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        private String username = "sa";
+        private String password = "";
+        private int maximumPoolSize = 10;
+    }
+}
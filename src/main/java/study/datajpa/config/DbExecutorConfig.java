@@ -0,0 +1,34 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+/* Executor for @Async("dbExecutor") repository methods.
+ * As many threads as pooled connections: more threads would only wait for a connection,
+ * so requests queue here (bounded), visible as executor.* metrics with name=dbExecutor. */
+@EnableAsync
+@Configuration
+public class DbExecutorConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor dbExecutor(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int connections,
+                                             @Value("${db.executor.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(connections);
+        executor.setMaxPoolSize(connections);
+        executor.setQueueCapacity(queueCapacity); // full queue -> TaskRejectedException -> 503
+        executor.setThreadNamePrefix("db-");
+        return executor;
+    }
+
+    // partitions of MemberRepositoryCustom.scanInParallel - kept apart from the common pool and from dbExecutor
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool scanPool(@Value("${member.scan.max-parallelism:4}") int parallelism) {
+        return new ForkJoinPool(parallelism);
+    }
+}
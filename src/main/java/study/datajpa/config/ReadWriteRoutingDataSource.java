@@ -0,0 +1,71 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/* Read-only transactions -> least-loaded replica, everything else -> primary.
+ * A replica that cannot hand out a connection is skipped and the primary is used instead.
+ * Must be wrapped in LazyConnectionDataSourceProxy: the read-only flag of the transaction
+ * is only known after the transaction manager has begun, i.e. at the first statement. */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements DisposableBean {
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !replicas.isEmpty()) {
+            HikariDataSource replica = leastLoaded();
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                log.warn("replica {} unavailable, falling back to primary: {}", replica.getPoolName(), e.getMessage());
+            }
+        }
+        return primary.getConnection();
+    }
+
+    // explicit credentials: same as without routing, the primary pool decides (Hikari rejects them)
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+    }
+
+    private HikariDataSource leastLoaded() {
+        HikariDataSource selected = replicas.get(0);
+        int min = Integer.MAX_VALUE;
+        for (HikariDataSource replica : replicas) {
+            int active = activeConnections(replica);
+            if (active < min) {
+                min = active;
+                selected = replica;
+            }
+        }
+        return selected;
+    }
+
+    private static int activeConnections(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections(); // null until the pool has started
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
@@ -0,0 +1,225 @@
+package study.datajpa.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.CountMode;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/* warmup.enabled=true: runs every read query path once before the application reports ready
+ * (runners finish before ApplicationReadyEvent / readiness ACCEPTING_TRAFFIC).
+ * Steps come from the repository metadata: every query method of every Spring Data repository (derived, named,
+ * @Query, entity graph), plus findById, findAll and the custom read methods, which the metadata doesn't list.
+ * They are executed with arguments that match no row, in a rolled back read-only transaction; @Modifying methods
+ * are skipped, and so are methods whose parameter types have no such argument (logged).
+ * Methods without parameters read the whole table (findAll, findMemberEntityGraph, ...): warmup.unbounded=false skips them.
+ * The report shows each call twice: cold (what the first request would pay) and warm (what it pays now). */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "warmup.enabled", havingValue = "true")
+public class WarmupRunner implements ApplicationRunner {
+
+    private static final PageRequest ONE = PageRequest.of(0, 1);
+    private static final String NO_USER = "";
+    private static final int NO_AGE = -1;
+    private static final long NO_ID = Long.MAX_VALUE;
+
+    private final ApplicationContext applicationContext;
+    private final MemberRepository memberRepository;
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${warmup.unbounded:true}")
+    private boolean unbounded;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+
+        Map<String, Runnable> steps = new LinkedHashMap<>();
+        steps.put("connection pool", this::touchConnection);
+        steps.put("proxies", () -> {
+            em.getReference(Member.class, Long.MIN_VALUE);
+            em.getReference(Team.class, Long.MIN_VALUE);
+        });
+        addRepositorySteps(steps);
+        // custom and default methods: not query methods in the metadata
+        steps.put("MemberRepository.findMemberCustom", memberRepository::findMemberCustom);
+        steps.put("MemberRepository.findByNamesChunked", () -> memberRepository.findByNamesChunked(Collections.singletonList(NO_USER)));
+        steps.put("MemberRepository.findByUsernameNearCached", () -> memberRepository.findByUsernameNearCached(NO_USER));
+        steps.put("MemberRepository.findAllWithCountMode", () -> memberRepository.findAllWithCountMode(ONE, CountMode.EXACT));
+        steps.put("MemberRepository.findByAgeWithCountMode", () -> memberRepository.findByAgeWithCountMode(NO_AGE, ONE, CountMode.EXACT));
+        steps.put("MemberRepository.findMemberDtoWithCountMode", () -> memberRepository.findMemberDtoWithCountMode(ONE, CountMode.EXACT));
+        steps.put("MemberRepository.streamMemberDto", () -> {
+            try (Stream<MemberDto> members = memberRepository.streamMemberDto(1)) {
+                members.findFirst();
+            }
+        });
+        steps.put("MemberRepository.seekAll", () -> memberRepository.seekAll(MemberCursor.afterId(NO_ID), 1));
+        steps.put("MemberRepository.seekByAge", () -> memberRepository.seekByAge(NO_AGE, MemberCursor.start(MemberCursor.Ordering.USERNAME_ID), 1));
+
+        Map<String, long[]> report = new LinkedHashMap<>();
+        steps.forEach((name, step) -> report.put(name, new long[]{timed(step), 0}));
+        steps.forEach((name, step) -> report.get(name)[1] = timed(step));
+
+        StringBuilder table = new StringBuilder();
+        long coldTotal = 0;
+        long warmTotal = 0;
+        for (Map.Entry<String, long[]> entry : report.entrySet()) {
+            long[] micros = entry.getValue();
+            coldTotal += micros[0];
+            warmTotal += micros[1];
+            table.append(String.format("%n  %-55s cold %8d us   warm %8d us", entry.getKey(), micros[0], micros[1]));
+        }
+        log.info("warm-up done in {} ms (JVM uptime {} ms), first call without / with warm-up: {} us / {} us{}",
+                (System.nanoTime() - start) / 1_000_000,
+                ManagementFactory.getRuntimeMXBean().getUptime(),
+                coldTotal, warmTotal, table);
+    }
+
+    private void addRepositorySteps(Map<String, Runnable> steps) {
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow(IllegalStateException::new);
+            String prefix = information.getRepositoryInterface().getSimpleName() + ".";
+
+            Object noId = noMatch(information.getIdType(), ResolvableType.forClass(information.getIdType()));
+            CrudRepository<?, Object> crud = castCrud(repository);
+            steps.put(prefix + "findById", () -> crud.findById(noId));
+            if (unbounded) { // a redeclared findAll (MemberRepository's entity graph) is not a query method either
+                steps.put(prefix + "findAll", crud::findAll);
+            }
+
+            for (Method method : information.getQueryMethods()) {
+                if (AnnotatedElementUtils.hasAnnotation(method, Modifying.class)) {
+                    continue;
+                }
+                if (method.getParameterCount() == 0 && !unbounded) {
+                    log.info("warm-up skips {}{}: whole table (warmup.unbounded=false)", prefix, method.getName());
+                    continue;
+                }
+                Object[] arguments = noMatchArguments(method);
+                if (arguments == null) {
+                    log.info("warm-up skips {}{}: no non-matching argument for {}",
+                            prefix, method.getName(), Arrays.toString(method.getParameterTypes()));
+                    continue;
+                }
+                steps.put(prefix + method.getName(), () -> consume(ReflectionUtils.invokeMethod(method, repository, arguments)));
+            }
+        }
+    }
+
+    // null if a parameter has an unknown type
+    private static Object[] noMatchArguments(Method method) {
+        Object[] arguments = new Object[method.getParameterCount()];
+        for (int i = 0; i < arguments.length; i++) {
+            ResolvableType type = ResolvableType.forMethodParameter(method, i);
+            arguments[i] = noMatch(type.resolve(Object.class), type);
+            if (arguments[i] == null) {
+                return null;
+            }
+        }
+        return arguments;
+    }
+
+    private static Object noMatch(Class<?> type, ResolvableType resolvableType) {
+        if (type == String.class) {
+            return NO_USER;
+        }
+        if (type == int.class || type == Integer.class) {
+            return NO_AGE;
+        }
+        if (type == long.class || type == Long.class) {
+            return NO_ID;
+        }
+        if (Pageable.class.isAssignableFrom(type)) {
+            return ONE;
+        }
+        if (type == Sort.class) {
+            return Sort.unsorted();
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            Class<?> elementType = resolvableType.asCollection().resolveGeneric(0);
+            Object element = elementType == null ? null : noMatch(elementType, ResolvableType.forClass(elementType));
+            return element == null ? null : Collections.singletonList(element);
+        }
+        return null;
+    }
+
+    // results are read inside the transaction: streams closed, async results awaited
+    private static void consume(Object result) {
+        if (result instanceof Stream) {
+            ((Stream<?>) result).close();
+        } else if (result instanceof CompletableFuture) {
+            ((CompletableFuture<?>) result).join();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CrudRepository<?, Object> castCrud(Object repository) {
+        return (CrudRepository<?, Object>) repository;
+    }
+
+    private long timed(Runnable step) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        long start = System.nanoTime();
+        try {
+            tx.executeWithoutResult(status -> {
+                step.run();
+                status.setRollbackOnly();
+            });
+        } catch (RuntimeException e) {
+            log.warn("warm-up step failed: {}", e.getMessage());
+        }
+        return (System.nanoTime() - start) / 1_000;
+    }
+
+    private void touchConnection() {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(1);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// second-level / query cache hit and miss (cache profile)
+@RestController
+@RequiredArgsConstructor
+public class CacheStatsController {
+
+    private final EntityManagerFactory emf;
+
+    @GetMapping("/stats/cache")
+    public Map<String, Object> cacheStats() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("secondLevelCacheHit", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMiss", statistics.getSecondLevelCacheMissCount());
+        result.put("queryCacheHit", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMiss", statistics.getQueryCacheMissCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hit", region.getHitCount());
+            regionStats.put("miss", region.getMissCount());
+            regionStats.put("put", region.getPutCount());
+            regionStats.put("elements", region.getElementCountInMemory());
+            regions.put(regionName, regionStats);
+        }
+        result.put("regions", regions);
+        return result;
+    }
+}
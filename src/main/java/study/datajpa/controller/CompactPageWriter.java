@@ -0,0 +1,36 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.data.domain.Page;
+import study.datajpa.dto.MemberDto;
+
+import java.io.IOException;
+
+/* {"content":[{"id":1,"username":"member1","teamName":"teamA"}, ...],"total":100,"next":2}
+ * next: page number to request next, null on the last page.
+ * Written field by field: no PageImpl pageable/sort/number* metadata, no bean introspection. */
+public final class CompactPageWriter {
+
+    private CompactPageWriter() {
+    }
+
+    public static void write(JsonGenerator generator, Page<MemberDto> page) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("content");
+        for (MemberDto member : page.getContent()) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", member.getId());
+            generator.writeStringField("username", member.getUsername());
+            generator.writeStringField("teamName", member.getTeamName());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeNumberField("total", page.getTotalElements());
+        if (page.hasNext()) {
+            generator.writeNumberField("next", page.getNumber() + 1);
+        } else {
+            generator.writeNullField("next");
+        }
+        generator.writeEndObject();
+    }
+}
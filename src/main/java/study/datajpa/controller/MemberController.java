@@ -1,34 +1,87 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import study.datajpa.dto.CursorResult;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberVersionDto;
+import study.datajpa.dto.ScrollToken;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.CountMode;
 import study.datajpa.repository.MemberRepository;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${spring.data.web.pageable.max-page-size:2000}") // same limit as Pageable parameters
+    private int maxPageSize;
+
+    @Value("${member.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    @Value("${member.scroll.default-size:20}")
+    private int scrollDefaultSize;
+
+    @Value("${member.scroll.max-size:100}")
+    private int scrollMaxSize;
 
     // Web extension - domain class converter
+    /* ETag = version, Last-Modified = lastModifiedDate
+    *  If-None-Match / If-Modified-Since still valid -> 304 without body (null return) */
     @GetMapping("/members/{id}")
-    public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).get();
+    public String findMember(@PathVariable("id") Long id, WebRequest request) {
+        MemberVersionDto member = memberRepository.findMemberVersionDtoById(id)  // projection, no entity hydration
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (request.checkNotModified(MemberVersionDto.eTag(member.getVersion()),
+                MemberVersionDto.lastModifiedMillis(member.getLastModifiedDate()))) {
+            return null;
+        }
         return member.getUsername();
     }
 
+    // the converter has already loaded the entity (findById): a 304 only saves the body
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member) {
+    public String findMember2(@PathVariable("id") Member member, WebRequest request) {
+        if (request.checkNotModified(MemberVersionDto.eTag(member.getVersion()),
+                MemberVersionDto.lastModifiedMillis(member.getLastModifiedDate()))) {
+            return null;
+        }
         return member.getUsername();
     }
 
@@ -45,21 +98,142 @@ public class MemberController {
     }*/
 
     // convert into DTO
+    /* total count is cached by default
+    *  http://localhost:8080/members?page=1&count=EXACT
+    *  http://localhost:8080/members?page=1&count=ESTIMATED */
     @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable) {
-        return memberRepository.findAll(pageable)
-                .map(MemberDto::new);                    // method reference
+    public Page<MemberDto> list(@PageableDefault(size = 5) Pageable pageable,
+                                @RequestParam(value = "count", defaultValue = "CACHED") CountMode countMode) {
+        return memberRepository.findMemberDtoWithCountMode(pageable, countMode); // select only the DTO columns
+        //return memberRepository.findAll(pageable)
+                //.map(MemberDto::new);                  // method reference
                 //.map(member -> new MemberDto(member.getId(), member.getUsername(), null));
                 //.map(member -> new MemberDto(member)); // DTO can see entity. However an entity must not see dto.
     }
 
+    // compact page - content, total and next page only, streamed to the response
+    /* http://localhost:8080/members?page=1&format=compact
+    *  with after= the cursor listing answers: format only applies to offset pages */
+    @GetMapping(value = "/members", params = {"format=compact", "!after"})
+    public void listCompact(@PageableDefault(size = 5) Pageable pageable,
+                            @RequestParam(value = "count", defaultValue = "CACHED") CountMode countMode,
+                            HttpServletResponse response) throws IOException {
+        Page<MemberDto> page = memberRepository.findMemberDtoWithCountMode(pageable, countMode);
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            CompactPageWriter.write(generator, page);
+        }
+    }
+
+    // async - the servlet thread is released, requests queue at dbExecutor instead of the Tomcat pool
+    @GetMapping("/async/members/{id}")
+    public CompletableFuture<String> findMemberAsync(@PathVariable("id") Long id) {
+        return memberRepository.findAsyncById(id)
+                .thenApply(member -> {
+                    if (member == null) {
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+                    }
+                    return member.getUsername();
+                });
+    }
+
+    @GetMapping("/async/members")
+    public CompletableFuture<Page<MemberDto>> listAsync(@PageableDefault(size = 5) Pageable pageable) {
+        return memberRepository.findAsyncMemberDtoBy(pageable);
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public void dbExecutorSaturated() {
+    }
+
+    // keyset pagination - page N costs the same as page 1
+    /* http://localhost:8080/members?after=
+    *  http://localhost:8080/members?after=<next of the previous response>&size=3 */
+    @GetMapping(value = "/members", params = "after")
+    public CursorResult<MemberDto> listAfter(@RequestParam("after") String after,
+                                             @RequestParam(value = "size", defaultValue = "5") int size) {
+        MemberCursor cursor;
+        try {
+            cursor = MemberCursor.decode(after, MemberCursor.Ordering.ID); // other orderings -> 400
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        Slice<MemberDto> slice = memberRepository.seekAllMemberDto(cursor, Math.max(1, Math.min(size, maxPageSize)));
+
+        List<MemberDto> content = slice.getContent();
+        String next = slice.hasNext()
+                ? MemberCursor.afterId(content.get(content.size() - 1).getId()).encode()
+                : null;
+        return new CursorResult<>(content, next);
+    }
+
+    // infinite scroll - keyset Slice (size + 1 rows after the last id sent), never a count query
+    /* http://localhost:8080/members/scroll
+    *  http://localhost:8080/members/scroll?age=10&size=30
+    *  http://localhost:8080/members/scroll?token=<next of the previous response> */
+    @GetMapping("/members/scroll")
+    public CursorResult<MemberDto> scroll(@RequestParam(value = "age", required = false) Integer age,
+                                          @RequestParam(value = "size", required = false) Integer size,
+                                          @RequestParam(value = "token", required = false) String token) {
+        ScrollToken current;
+        if (token == null || token.isEmpty()) {
+            int pageSize = size == null ? scrollDefaultSize : size;
+            current = ScrollToken.first(age, Math.max(1, Math.min(pageSize, scrollMaxSize)));
+        } else {
+            try {
+                current = ScrollToken.decode(token);
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+            }
+            if (current.getSize() > scrollMaxSize || (age != null && !age.equals(current.getAge()))) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "token does not match the request");
+            }
+        }
+
+        PageRequest firstPage = PageRequest.of(0, current.getSize()); // keyset: never an offset
+        Slice<MemberDto> slice = current.getAge() == null
+                ? memberRepository.findMemberDtoSliceAfter(current.getLastId(), firstPage)
+                : memberRepository.findMemberDtoSliceByAgeAfter(current.getAge(), current.getLastId(), firstPage);
+
+        List<MemberDto> content = slice.getContent();
+        String next = slice.hasNext()
+                ? current.next(content.get(content.size() - 1).getId()).encode()
+                : null;
+        return new CursorResult<>(slice.getContent(), next);
+    }
+
+    // NDJSON export - each row is written as soon as it is read, heap stays flat regardless of table size
+    /* curl -H 'Accept: application/x-ndjson' http://localhost:8080/members/export
+    *  no Accept header or */* works too; Accept: application/json is a 406, the body is not one JSON document */
+    @Transactional(readOnly = true)
+    @GetMapping(value = "/members/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ObjectWriter writer = objectMapper.writerFor(MemberDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto(exportFetchSize);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            Iterator<MemberDto> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
     // @PostConstruct
     public void init() {
         // memberRepository.save(new Member("userA")); // domain class converter
 
         // paging and sorting
+        List<Member> members = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("member" + i, i));
+            members.add(new Member("member" + i, i));
         }
+        memberRepository.saveAllBatched(members, 50); // 2 JDBC batches instead of 100 inserts
     }
 }
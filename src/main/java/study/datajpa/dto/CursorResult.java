@@ -0,0 +1,20 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/* Page of a keyset (seek) listing. No total count: page N costs the same as page 1. */
+@Getter
+public class CursorResult<T> {
+
+	private final List<T> content;
+	private final String next;      // null on the last page
+	private final boolean hasNext;
+
+	public CursorResult(List<T> content, String next) {
+		this.content = content;
+		this.next = next;
+		this.hasNext = next != null;
+	}
+}
@@ -0,0 +1,84 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/* Opaque keyset cursor for seek pagination.
+ * Holds the ordering it was issued for and the sort key of the last row of the previous page: id, or (username, id).
+ * A cursor of one ordering is rejected by a listing of another: its key would be compared with the wrong columns.
+ * Clients only pass the encoded string back, so the ordering can change without breaking the API. */
+@Getter
+public class MemberCursor {
+
+	public enum Ordering {
+		ID,         // m.id
+		USERNAME_ID // m.username nulls last, m.id
+	}
+
+	private static final String SEPARATOR = "\u0000";
+	private static final String NULL_USERNAME = "-";
+	private static final String USERNAME = "+";
+
+	private final Ordering ordering;
+	private final String username; // null: a member without username (or an ID cursor)
+	private final Long id;         // null: first page
+
+	private MemberCursor(Ordering ordering, String username, Long id) {
+		this.ordering = ordering;
+		this.username = username;
+		this.id = id;
+	}
+
+	public static MemberCursor start(Ordering ordering) {
+		return new MemberCursor(ordering, null, null);
+	}
+
+	public static MemberCursor afterId(Long id) {
+		return new MemberCursor(Ordering.ID, null, id);
+	}
+
+	public static MemberCursor afterUsername(String username, Long id) {
+		return new MemberCursor(Ordering.USERNAME_ID, username, id);
+	}
+
+	public boolean isStart() {
+		return id == null;
+	}
+
+	public MemberCursor requireOrdering(Ordering expected) {
+		if (ordering != expected) {
+			throw new IllegalArgumentException("cursor of ordering " + ordering + ", expected " + expected);
+		}
+		return this;
+	}
+
+	public String encode() {
+		String raw = ordering + SEPARATOR + (username == null ? NULL_USERNAME : USERNAME + username) + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	// empty or missing cursor -> first page of the expected ordering
+	public static MemberCursor decode(String cursor, Ordering expected) {
+		if (cursor == null || cursor.isEmpty()) {
+			return start(expected);
+		}
+		MemberCursor decoded;
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int first = raw.indexOf(SEPARATOR);
+			int last = raw.lastIndexOf(SEPARATOR);
+			Ordering ordering = Ordering.valueOf(raw.substring(0, first));
+			String username = raw.substring(first + 1, last);
+			Long id = Long.valueOf(raw.substring(last + 1));
+			if (!username.startsWith(USERNAME) && !username.equals(NULL_USERNAME)) {
+				throw new IllegalArgumentException(raw);
+			}
+			decoded = new MemberCursor(ordering, username.startsWith(USERNAME) ? username.substring(1) : null, id);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("invalid cursor: " + cursor, e);
+		}
+		return decoded.requireOrdering(expected);
+	}
+}
@@ -16,8 +16,10 @@ public class MemberDto {
 		this.teamName = teamName;
 	}
 
+	// team is lazy: call inside a session (team proxies are batch-loaded)
 	public MemberDto(Member member){
 		this.id = member.getId();
 		this.username = member.getUsername();
+		this.teamName = member.getTeam() != null ? member.getTeam().getName() : null;
 	}
 }
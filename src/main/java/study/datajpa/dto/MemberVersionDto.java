@@ -0,0 +1,34 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+@Data // username plus the HTTP validators of /members/{id}, one query for both 200 and 304
+public class MemberVersionDto {
+
+	private Long id;
+	private String username;
+	private Long version;
+	private LocalDateTime lastModifiedDate;
+
+	public MemberVersionDto(Long id, String username, Long version, LocalDateTime lastModifiedDate) {
+		this.id = id;
+		this.username = username;
+		this.version = version;
+		this.lastModifiedDate = lastModifiedDate;
+	}
+
+	// @Version is bumped by every update, bulk updates included
+	public static String eTag(Long version) {
+		return "\"" + version + "\"";
+	}
+
+	// -1: no Last-Modified header, ETag only
+	public static long lastModifiedMillis(LocalDateTime lastModifiedDate) {
+		return lastModifiedDate != null
+				? lastModifiedDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+				: -1;
+	}
+}
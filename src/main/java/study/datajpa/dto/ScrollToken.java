@@ -0,0 +1,57 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/* Opaque continuation token of /members/scroll: filter, id of the last row sent and page size.
+ * The next page is "id > lastId" (keyset): no offset scan, and rows inserted or deleted before the cursor
+ * don't shift the pages. The size is fixed by the first request. */
+@Getter
+public class ScrollToken {
+
+	private static final String SEPARATOR = ":";
+
+	private final Integer age;  // null: unfiltered
+	private final long lastId; // Long.MIN_VALUE: first page
+	private final int size;
+
+	public ScrollToken(Integer age, long lastId, int size) {
+		this.age = age;
+		this.lastId = lastId;
+		this.size = size;
+	}
+
+	public static ScrollToken first(Integer age, int size) {
+		return new ScrollToken(age, Long.MIN_VALUE, size);
+	}
+
+	public ScrollToken next(long lastId) {
+		return new ScrollToken(age, lastId, size);
+	}
+
+	public String encode() {
+		String raw = (age == null ? "" : age.toString()) + SEPARATOR + lastId + SEPARATOR + size;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static ScrollToken decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = raw.split(SEPARATOR, -1);
+			if (parts.length != 3) {
+				throw new IllegalArgumentException(raw);
+			}
+			Integer age = parts[0].isEmpty() ? null : Integer.valueOf(parts[0]);
+			long lastId = Long.parseLong(parts[1]);
+			int size = Integer.parseInt(parts[2]);
+			if (size < 1) {
+				throw new IllegalArgumentException(raw);
+			}
+			return new ScrollToken(age, lastId, size);
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("invalid token: " + token, e);
+		}
+	}
+}
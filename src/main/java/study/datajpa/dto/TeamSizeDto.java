@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.Data;
+
+@Data // Team.memberCount as stored: managed Teams keep the count they were loaded with
+public class TeamSizeDto {
+
+	private Long id;
+	private String name;
+	private int memberCount;
+
+	public TeamSizeDto(Long id, String name, int memberCount) {
+		this.id = id;
+		this.name = name;
+		this.memberCount = memberCount;
+	}
+}
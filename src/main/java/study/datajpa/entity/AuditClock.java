@@ -0,0 +1,50 @@
+package study.datajpa.entity;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/* Timestamp source for auditing, one bean per application context (AuditingConfig).
+ * ticking: a daemon thread refreshes the value every resolution, so now() is a volatile read
+ * instead of a clock call and a LocalDateTime allocation per entity. system: LocalDateTime.now(). */
+public class AuditClock implements AutoCloseable {
+
+    private final ScheduledExecutorService ticker;
+    private volatile LocalDateTime cached;
+
+    private AuditClock(ScheduledExecutorService ticker) {
+        this.ticker = ticker;
+    }
+
+    public static AuditClock system() {
+        return new AuditClock(null);
+    }
+
+    public static AuditClock ticking(Duration resolution) {
+        AuditClock clock = new AuditClock(Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-clock");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        clock.cached = LocalDateTime.now();
+        clock.ticker.scheduleAtFixedRate(() -> clock.cached = LocalDateTime.now(),
+                resolution.toNanos(), resolution.toNanos(), TimeUnit.NANOSECONDS);
+        return clock;
+    }
+
+    public LocalDateTime now() {
+        LocalDateTime now = cached;
+        return now != null ? now : LocalDateTime.now();
+    }
+
+    // context shutdown: the ticker thread ends with its context
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+        cached = null;
+    }
+}
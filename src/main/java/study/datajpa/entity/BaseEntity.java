@@ -2,17 +2,12 @@ package study.datajpa.entity;
 
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedBy;
-import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
-import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.Column;
-import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
-import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class) // To notify Event-based operating
+// auditing listener is inherited from BaseTimeEntity (AuditListener)
 @MappedSuperclass
 @Getter
 public class BaseEntity extends BaseTimeEntity{
@@ -23,4 +18,13 @@ public class BaseEntity extends BaseTimeEntity{
 
     @LastModifiedBy
     private String lastModifiedBy;
+
+    void markCreatedBy(String auditor) {
+        this.createdBy = auditor;
+        this.lastModifiedBy = auditor;
+    }
+
+    void markModifiedBy(String auditor) {
+        this.lastModifiedBy = auditor;
+    }
 }
@@ -3,14 +3,13 @@ package study.datajpa.entity;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.Column;
 import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners(AuditListener.class)
 @MappedSuperclass
 @Getter
 public class BaseTimeEntity {
@@ -22,4 +21,13 @@ public class BaseTimeEntity {
     @LastModifiedDate
     private LocalDateTime lastModifiedDate;
 
+    // fast auditing (AuditListener) - same result as AuditingHandler: modified is also set on creation
+    void markCreated(LocalDateTime now) {
+        this.createDate = now;
+        this.lastModifiedDate = now;
+    }
+
+    void markModified(LocalDateTime now) {
+        this.lastModifiedDate = now;
+    }
 }
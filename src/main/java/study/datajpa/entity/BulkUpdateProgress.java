@@ -0,0 +1,43 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/* Checkpoint of a chunked bulk update.
+ * Written in the same transaction as each chunk, so a restarted job continues right after the last committed chunk. */
+@Entity
+@Getter
+@ToString
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BulkUpdateProgress {
+
+	@Id
+	private String jobName;
+
+	private int age;            // threshold of the job: a resume with another age is rejected
+	private Long lastId;        // last member id covered by a committed chunk
+	private Long maxId;         // upper bound fixed when the job started
+	private long updatedCount;
+	private int chunkCount;
+	private boolean completed;
+
+	public BulkUpdateProgress(String jobName, int age, Long maxId) {
+		this.jobName = jobName;
+		this.age = age;
+		this.lastId = 0L;
+		this.maxId = maxId;
+		this.completed = maxId == null;
+	}
+
+	public void chunkDone(Long lastId, int updated) {
+		this.lastId = lastId;
+		this.updatedCount += updated;
+		this.chunkCount++;
+		this.completed = lastId >= maxId;
+	}
+}
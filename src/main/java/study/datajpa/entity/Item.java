@@ -26,9 +26,10 @@ public class Item extends BaseTimeEntity implements Persistable<String>  {
 
 	@Override
 	public String getId() {
-		return null;
+		return id;
 	}
 
+	// assigned id: new until auditing has set createDate on persist -> save() calls persist, no select-before-merge
 	@Override
 	public boolean isNew() {
 		return getCreateDate() == null;
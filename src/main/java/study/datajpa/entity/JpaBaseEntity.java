@@ -20,7 +20,7 @@ public class JpaBaseEntity {
     public void prePersist() {
         LocalDateTime now = LocalDateTime.now();
         createDate = now;
-        createDate = now;
+        updateDate = now;
     }
 
     @PreUpdate
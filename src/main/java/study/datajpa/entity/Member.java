@@ -1,10 +1,17 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import study.datajpa.repository.MemberChangeListener;
 
 import javax.persistence.*;
 
 @Entity
+@Cacheable // second-level cache, only used when enabled (cache profile)
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@EntityListeners(MemberChangeListener.class)
+@Table(indexes = @Index(name = "idx_member_username", columnList = "username")) // every *ByUsername lookup
 @Getter
 //@NoArgsConstructor(access = AccessLevel.PROTECTED) // default constructor
 
@@ -20,12 +27,18 @@ import javax.persistence.*;
 public class Member extends BaseEntity{
 //public class Member {
 
-	@Id @GeneratedValue
+	// pooled sequence: one sequence call per 50 ids, and the ids are known before the batched INSERT
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+	@SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
 	@Column(name = "member_id")
 	private Long id;
 	private String username;
 	private int age;
 
+	@Version // optimistic lock: concurrent updates of the same member fail instead of overwriting each other
+	private Long version;
+
 	@ManyToOne(fetch = FetchType.LAZY) // proxy로 만들어 놓고 호출 시 가져와서 초기화함
 	@JoinColumn(name = "team_id")
 	private Team team;
@@ -58,8 +71,22 @@ public class Member extends BaseEntity{
 		this.username = username;
 	}
 
+	// the members collection is not loaded for it; Team.memberCount follows at flush (TeamMemberCounter)
 	public void changeTeam(Team team) {
+		if (this.team == team) {
+			return;
+		}
+		if (this.team != null) {
+			this.team.removeMember(this);
+		}
 		this.team = team;
-		team.getMembers().add(this);
+		team.addMember(this);
+	}
+
+	@PreRemove
+	private void leaveTeam() {
+		if (team != null) {
+			team.removeMember(this);
+		}
 	}
 }
@@ -4,22 +4,36 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_member_count", columnList = "member_count")) // largest teams first
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Getter
 //@NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
 public class  Team {
 
-	@Id @GeneratedValue
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+	@SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
 	@Column(name = "team_id")
 	private Long id;
 	private String name;
 
+	/* Denormalized members.size(), so the size never needs the collection. Written only by SQL: flushed member
+	 * inserts/moves/deletes add their delta to the row (TeamMemberCounter), bulk paths recount it.
+	 * Never written from this field, which is the value when the team was loaded (0 for a new team). */
+	@Column(name = "member_count", updatable = false)
+	private int memberCount;
+
 	@OneToMany(mappedBy = "team") // It is recommended to write mappedBy on where foreign key doesn't exist.
 	private List<Member> members = new ArrayList<>();
 
@@ -29,4 +43,17 @@ public class  Team {
 		this.name = name;
 	}
 
+	// public: also called through lazy proxies. members is only touched when already loaded
+	public void addMember(Member member) {
+		if (Hibernate.isInitialized(members)) {
+			members.add(member);
+		}
+	}
+
+	public void removeMember(Member member) {
+		if (Hibernate.isInitialized(members)) {
+			members.remove(member);
+		}
+	}
+
 }
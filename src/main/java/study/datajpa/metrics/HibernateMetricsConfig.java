@@ -0,0 +1,48 @@
+package study.datajpa.metrics;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// feeds QueryCounter: every prepared statement and every entity hydration
+@Configuration
+public class HibernateMetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCounterCustomizer() {
+        StatementInspector statementInspector = sql -> {
+            QueryCounter.statementPrepared(sql);
+            return sql;
+        };
+
+        Integrator entityLoadCounter = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                                  SessionFactoryServiceRegistry serviceRegistry) {
+                serviceRegistry.getService(EventListenerRegistry.class)
+                        .appendListeners(EventType.POST_LOAD, event -> QueryCounter.entityLoaded());
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                     SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementInspector);
+            properties.put("hibernate.integrator_provider", (IntegratorProvider) () -> List.of(entityLoadCounter));
+        };
+    }
+}
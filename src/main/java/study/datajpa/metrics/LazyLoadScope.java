@@ -0,0 +1,69 @@
+package study.datajpa.metrics;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/* Unit of work of the N+1 detector: a web request (RepositoryMetricsConfig filter), otherwise the current transaction.
+ * SELECTs that run after a repository call returned - until the next repository call or the end of the scope -
+ * are charged to that call: they are lazy loads of its result, e.g. Member.team proxies initialized by the caller. */
+final class LazyLoadScope {
+
+    private static final ThreadLocal<LazyLoadScope> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMetricsInterceptor interceptor; // null: no call pending
+    private String method;
+    private long rows;
+    private long selects;
+    private long selectsAtReturn;
+
+    private LazyLoadScope() {
+    }
+
+    static LazyLoadScope open() {
+        LazyLoadScope scope = new LazyLoadScope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    // scope of the request, or one bound to the active transaction; null outside both
+    static LazyLoadScope current() {
+        LazyLoadScope scope = CURRENT.get();
+        if (scope == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            LazyLoadScope transactionScope = open();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    transactionScope.close();
+                }
+            });
+            scope = transactionScope;
+        }
+        return scope;
+    }
+
+    void beforeCall() {
+        settle();
+    }
+
+    void afterCall(RepositoryMetricsInterceptor interceptor, String method, long rows, long selects) {
+        this.interceptor = interceptor;
+        this.method = method;
+        this.rows = rows;
+        this.selects = selects;
+        this.selectsAtReturn = QueryCounter.selects();
+    }
+
+    void close() {
+        settle();
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    private void settle() {
+        if (interceptor != null) {
+            interceptor.checkLazyLoads(method, rows, selects, QueryCounter.selects() - selectsAtReturn);
+            interceptor = null;
+        }
+    }
+}
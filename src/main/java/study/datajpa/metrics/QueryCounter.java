@@ -0,0 +1,48 @@
+package study.datajpa.metrics;
+
+/* Per-thread JDBC statement (all / SELECT only) and entity load counters.
+ * Hibernate work for a repository call runs on the calling thread, so a before/after delta
+ * gives the numbers for that call. */
+public final class QueryCounter {
+
+    private static final ThreadLocal<long[]> COUNTS = ThreadLocal.withInitial(() -> new long[3]);
+
+    private static final int STATEMENTS = 0;
+    private static final int ENTITIES_LOADED = 1;
+    private static final int SELECTS = 2;
+
+    private QueryCounter() {
+    }
+
+    static void statementPrepared(String sql) {
+        long[] counts = COUNTS.get();
+        counts[STATEMENTS]++;
+        if (isSelect(sql)) {
+            counts[SELECTS]++;
+        }
+    }
+
+    static void entityLoaded() {
+        COUNTS.get()[ENTITIES_LOADED]++;
+    }
+
+    public static long statements() {
+        return COUNTS.get()[STATEMENTS];
+    }
+
+    public static long entitiesLoaded() {
+        return COUNTS.get()[ENTITIES_LOADED];
+    }
+
+    public static long selects() {
+        return COUNTS.get()[SELECTS];
+    }
+
+    private static boolean isSelect(String sql) {
+        int i = 0;
+        while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        return sql.regionMatches(true, i, "select", 0, 6);
+    }
+}
@@ -0,0 +1,64 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// adds RepositoryMetricsInterceptor to every Spring Data repository proxy, and the request scope of its N+1 detector
+@Configuration
+public class RepositoryMetricsConfig {
+
+    @Bean
+    public static BeanPostProcessor repositoryMetricsPostProcessor(
+            ObjectProvider<MeterRegistry> registryProvider,
+            @Value("${repository.metrics.n-plus-one-detection:false}") boolean nPlusOneDetection) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                                    // outermost advice: latency and statements include the transaction commit
+                                    proxyFactory.addAdvice(0, new RepositoryMetricsInterceptor(
+                                            registryProvider,
+                                            repositoryInformation.getRepositoryInterface(),
+                                            nPlusOneDetection))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // request-wide LazyLoadScope: also catches lazy loads outside transactions (controller, open-in-view rendering)
+    @Bean
+    @ConditionalOnWebApplication
+    @ConditionalOnProperty(name = "repository.metrics.n-plus-one-detection", havingValue = "true")
+    public OncePerRequestFilter lazyLoadScopeFilter() {
+        return new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                LazyLoadScope scope = LazyLoadScope.open();
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    scope.close();
+                }
+            }
+        };
+    }
+}
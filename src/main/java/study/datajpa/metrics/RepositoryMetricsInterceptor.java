@@ -0,0 +1,131 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/* Records, per repository method: call count and latency (repository.invocations),
+ * JDBC statements, rows returned and entities loaded.
+ * N+1 detection: a call that runs more SELECTs than it returns rows is flagged once per method,
+ * counting the lazy loads its result triggers later in the same request or transaction (LazyLoadScope).
+ * Only SELECTs: inserts, updates and team counter statements flushed by the call don't grow with the result. */
+@Slf4j
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+    private final String repository;
+    private final boolean nPlusOneDetection;
+    private final Map<String, Boolean> flagged = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(ObjectProvider<MeterRegistry> registryProvider,
+                                        Class<?> repositoryInterface,
+                                        boolean nPlusOneDetection) {
+        this.registryProvider = registryProvider;
+        this.repository = repositoryInterface.getSimpleName();
+        this.nPlusOneDetection = nPlusOneDetection;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MeterRegistry registry = registryProvider.getIfAvailable();
+        if (registry == null) {
+            return invocation.proceed();
+        }
+
+        String method = invocation.getMethod().getName();
+        LazyLoadScope scope = nPlusOneDetection ? LazyLoadScope.current() : null;
+        if (scope != null) {
+            scope.beforeCall();
+        }
+        long statementsBefore = QueryCounter.statements();
+        long selectsBefore = QueryCounter.selects();
+        long entitiesBefore = QueryCounter.entitiesLoaded();
+        long start = System.nanoTime();
+        String outcome = "success";
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            long statements = QueryCounter.statements() - statementsBefore;
+            long selects = QueryCounter.selects() - selectsBefore;
+            long entities = QueryCounter.entitiesLoaded() - entitiesBefore;
+            long rows = rows(result);
+            Tags tags = Tags.of("repository", repository, "method", method);
+
+            Timer.builder("repository.invocations")
+                    .tags(tags).tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            summary(registry, "repository.statements", tags).record(statements);
+            summary(registry, "repository.entities.loaded", tags).record(entities);
+            if (rows >= 0) {
+                summary(registry, "repository.rows", tags).record(rows);
+            }
+
+            if (nPlusOneDetection && rows > 1) {
+                if (selects > rows) {
+                    flag(registry, method, "call", selects, rows);
+                } else if (scope != null) {
+                    scope.afterCall(this, method, rows, selects); // settled at the next call or the end of the scope
+                }
+            }
+        }
+    }
+
+    void checkLazyLoads(String method, long rows, long selects, long lazySelects) {
+        MeterRegistry registry = registryProvider.getIfAvailable();
+        if (registry != null && lazySelects > 0 && selects + lazySelects > rows) {
+            flag(registry, method, "lazy", selects + lazySelects, rows);
+        }
+    }
+
+    // source: call = SELECTs inside the repository call, lazy = including lazy loads after it returned
+    private void flag(MeterRegistry registry, String method, String source, long selects, long rows) {
+        registry.counter("repository.n_plus_one", "repository", repository, "method", method, "source", source).increment();
+        if (flagged.putIfAbsent(method, Boolean.TRUE) == null) {
+            log.warn("possible N+1: {}.{} ran {} selects for {} rows ({})", repository, method, selects, rows, source);
+        }
+    }
+
+    private static DistributionSummary summary(MeterRegistry registry, String name, Tags tags) {
+        return DistributionSummary.builder(name).tags(tags).register(registry);
+    }
+
+    // -1: unknown (void, scalar, Stream, CompletableFuture - rows not known when the call returns)
+    private static long rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result == null || result instanceof Number || result instanceof Boolean
+                || result instanceof Stream || result instanceof Future) {
+            return -1;
+        }
+        return 1;
+    }
+}
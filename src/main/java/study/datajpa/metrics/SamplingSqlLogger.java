@@ -0,0 +1,50 @@
+package study.datajpa.metrics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/* Replaces the p6spy log line and org.hibernate.SQL debug logging (both log every statement).
+ * Registered as p6spy listener by the p6spy starter. A statement that is not logged costs one
+ * comparison and, at most, one random number: no SQL formatting, no parameter rendering. */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SamplingSqlLogger extends SimpleJdbcEventListener {
+
+    private final SqlLogSettings settings;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos);
+        boolean slow = elapsedMillis >= settings.getSlowThresholdMillis();
+        if (!slow && e == null && !sampled()) {
+            return;
+        }
+
+        String sql = settings.isCaptureParameters()
+                ? statementInformation.getSqlWithValues()
+                : statementInformation.getSql();
+        if (e != null) {
+            log.warn("{} ms | failed: {} | {}", elapsedMillis, e.getMessage(), sql);
+        } else if (slow) {
+            log.warn("{} ms | slow | {}", elapsedMillis, sql);
+        } else {
+            log.info("{} ms | {}", elapsedMillis, sql);
+        }
+    }
+
+    private boolean sampled() {
+        double sampleRate = settings.getSampleRate();
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/* GET  /actuator/sqllog
+ * POST /actuator/sqllog {"sampleRate": 0.01, "slowThresholdMillis": 100, "captureParameters": true}
+ * Changes apply to the next statement, no restart. */
+@Component
+@Endpoint(id = "sqllog")
+@RequiredArgsConstructor
+public class SqlLogEndpoint {
+
+    private final SqlLogSettings settings;
+
+    @ReadOperation
+    public SqlLogSettings settings() {
+        return settings;
+    }
+
+    @WriteOperation
+    public SqlLogSettings update(@Nullable Boolean enabled,
+                                 @Nullable Double sampleRate,
+                                 @Nullable Long slowThresholdMillis,
+                                 @Nullable Boolean captureParameters) {
+        if (enabled != null) {
+            settings.setEnabled(enabled);
+        }
+        if (sampleRate != null) {
+            settings.setSampleRate(sampleRate);
+        }
+        if (slowThresholdMillis != null) {
+            settings.setSlowThresholdMillis(slowThresholdMillis);
+        }
+        if (captureParameters != null) {
+            settings.setCaptureParameters(captureParameters);
+        }
+        return settings;
+    }
+}
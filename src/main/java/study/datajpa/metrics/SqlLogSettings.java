@@ -0,0 +1,28 @@
+package study.datajpa.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/* SQL observation settings. Mutable at runtime through the sqllog actuator endpoint.
+ * Slow statements are always logged; the others are logged with probability sampleRate. */
+@Getter @Setter
+@Component
+public class SqlLogSettings {
+
+    private volatile boolean enabled;
+    private volatile double sampleRate;
+    private volatile long slowThresholdMillis;
+    private volatile boolean captureParameters;
+
+    public SqlLogSettings(@Value("${sql-log.enabled:true}") boolean enabled,
+                          @Value("${sql-log.sample-rate:0}") double sampleRate,
+                          @Value("${sql-log.slow-threshold-ms:200}") long slowThresholdMillis,
+                          @Value("${sql-log.capture-parameters:false}") boolean captureParameters) {
+        this.enabled = enabled;
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.captureParameters = captureParameters;
+    }
+}
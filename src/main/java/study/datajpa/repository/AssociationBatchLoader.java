@@ -0,0 +1,92 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.*;
+
+/* DataLoader style resolution of Member <-> Team.
+ * Gathers the keys of a whole list first, then loads them with one IN query per batch,
+ * so walking a page of members (or teams) costs a constant number of queries. Must run in a transaction. */
+@Repository
+@RequiredArgsConstructor
+public class AssociationBatchLoader {
+
+    private final EntityManager em;
+
+    @Value("${spring.jpa.properties.hibernate.default_batch_fetch_size:100}")
+    private int batchSize;
+
+    // team id -> team, for the teams of these members. Uninitialized team proxies are initialized by the same queries.
+    public Map<Long, Team> loadTeams(Collection<Member> members) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        Map<Long, Team> teams = new HashMap<>();
+        Set<Long> pending = new LinkedHashSet<>();
+
+        for (Member member : members) {
+            Team team = member.getTeam();
+            if (team == null) {
+                continue;
+            }
+            Long teamId = (Long) util.getIdentifier(team); // proxy is not initialized by this
+            if (Hibernate.isInitialized(team)) {
+                teams.put(teamId, team);
+            } else {
+                pending.add(teamId);
+            }
+        }
+        pending.removeAll(teams.keySet());
+
+        for (List<Long> ids : partition(pending)) {
+            em.createQuery("select t from Team t where t.id in :ids", Team.class)
+                    .setParameter("ids", ids)
+                    .getResultList()
+                    .forEach(team -> teams.put(team.getId(), team));
+        }
+        return teams;
+    }
+
+    // team id -> members of the team, without initializing any Team.members collection
+    public Map<Long, List<Member>> loadMembers(Collection<Team> teams) {
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        Map<Long, List<Member>> membersByTeam = new HashMap<>();
+        Set<Long> teamIds = new LinkedHashSet<>();
+        for (Team team : teams) {
+            Long teamId = (Long) util.getIdentifier(team);
+            teamIds.add(teamId);
+            membersByTeam.put(teamId, new ArrayList<>());
+        }
+
+        for (List<Long> ids : partition(teamIds)) {
+            List<Member> members = em.createQuery("select m from Member m where m.team.id in :ids order by m.id", Member.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            for (Member member : members) {
+                membersByTeam.get((Long) util.getIdentifier(member.getTeam())).add(member);
+            }
+        }
+        return membersByTeam;
+    }
+
+    private List<List<Long>> partition(Collection<Long> ids) {
+        List<List<Long>> batches = new ArrayList<>();
+        List<Long> batch = new ArrayList<>(batchSize);
+        for (Long id : ids) {
+            batch.add(id);
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+        return batches;
+    }
+}
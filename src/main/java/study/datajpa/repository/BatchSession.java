@@ -0,0 +1,72 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+
+/* Persistence context of a long job, flushed and cleared every flushInterval operations.
+ * The number of managed entities (and so the dirty-checking cost per flush) never exceeds one interval.
+ * Entities returned before a flush are detached after it: change them within the same interval. */
+public class BatchSession {
+
+	private final EntityManager em;
+	private final int flushInterval;
+	private final DistributionSummary managedEntities; // nullable
+	private long operations;
+
+	BatchSession(EntityManager em, int flushInterval, DistributionSummary managedEntities) {
+		this.em = em;
+		this.flushInterval = flushInterval;
+		this.managedEntities = managedEntities;
+	}
+
+	/* batch insert without a template: persist all, flush and clear every flushInterval entities and once at the end.
+	 * Each flush goes out as JDBC batches (hibernate.jdbc.batch_size). Runs in the caller's transaction;
+	 * entities managed before the call are detached too. */
+	static int persistAll(EntityManager em, Iterable<?> entities, int flushInterval) {
+		BatchSession session = new BatchSession(em, flushInterval, null);
+		entities.forEach(session::persist);
+		session.flushAndClear();
+		return Math.toIntExact(session.getOperations());
+	}
+
+	public <T> T persist(T entity) {
+		em.persist(entity);
+		tick();
+		return entity;
+	}
+
+	public <T> T find(Class<T> entityClass, Object id) {
+		T entity = em.find(entityClass, id);
+		tick();
+		return entity;
+	}
+
+	public void remove(Object entity) {
+		em.remove(entity);
+		tick();
+	}
+
+	public void flushAndClear() {
+		if (managedEntities != null) {
+			managedEntities.record(managedEntityCount());
+		}
+		em.flush();
+		em.clear();
+	}
+
+	public int managedEntityCount() {
+		return em.unwrap(Session.class).getStatistics().getEntityCount();
+	}
+
+	public long getOperations() {
+		return operations;
+	}
+
+	private void tick() {
+		if (++operations % flushInterval == 0) {
+			flushAndClear();
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Team;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.util.function.Function;
+
+/* Constant-memory scope for large maintenance jobs.
+ * execute         : shared EntityManager, auto flush-and-clear every N operations (BatchSession)
+ * executeStateless: Hibernate StatelessSession, no persistence context at all (no cascades, no dirty checking,
+ *                   no events: Team.memberCount is recounted before the commit) */
+@Repository
+public class BatchSessionTemplate {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private final EntityManagerFactory emf;
+	private final TransactionTemplate tx;
+	private final ObjectProvider<MeterRegistry> registryProvider;
+
+	@Value("${batch.session.flush-interval:500}")
+	private int defaultFlushInterval;
+
+	public BatchSessionTemplate(EntityManagerFactory emf,
+								PlatformTransactionManager transactionManager,
+								ObjectProvider<MeterRegistry> registryProvider) {
+		this.emf = emf;
+		this.tx = new TransactionTemplate(transactionManager);
+		this.registryProvider = registryProvider;
+	}
+
+	public <T> T execute(Function<BatchSession, T> job) {
+		return execute(defaultFlushInterval, job);
+	}
+
+	public <T> T execute(int flushInterval, Function<BatchSession, T> job) {
+		return tx.execute(status -> {
+			BatchSession session = new BatchSession(em, flushInterval, managedEntitiesSummary());
+			T result = job.apply(session);
+			session.flushAndClear();
+			return result;
+		});
+	}
+
+	public <T> T executeStateless(Function<StatelessSession, T> job) {
+		try (StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession()) {
+			Transaction transaction = session.beginTransaction();
+			try {
+				T result = job.apply(session);
+				session.createNativeQuery(TeamRepository.RECOUNT_MEMBERS)
+						.addSynchronizedEntityClass(Team.class)
+						.executeUpdate();
+				transaction.commit();
+				return result;
+			} catch (RuntimeException e) {
+				transaction.rollback();
+				throw e;
+			}
+		}
+	}
+
+	// managed entities at each flush, max = peak persistence context size
+	private DistributionSummary managedEntitiesSummary() {
+		MeterRegistry registry = registryProvider.getIfAvailable();
+		return registry == null ? null : DistributionSummary.builder("batch.session.managed.entities").register(registry);
+	}
+}
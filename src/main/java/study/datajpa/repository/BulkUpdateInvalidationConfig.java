@@ -0,0 +1,77 @@
+package study.datajpa.repository;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/* Bulk @Modifying queries and the *InBatch deletes bypass entity listeners and Hibernate events:
+ * drop the derived caches of the repository's domain type, and recount Team.memberCount of the teams that lost members. */
+@Configuration
+public class BulkUpdateInvalidationConfig {
+
+    @Bean
+    public static BeanPostProcessor bulkUpdateInvalidationPostProcessor(ObjectProvider<CountCache> countCache,
+                                                                       ObjectProvider<MemberUsernameCache> usernameCache,
+                                                                       ObjectProvider<TeamRepository> teamRepository) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport) {
+                    ((RepositoryFactoryBeanSupport<?, ?, ?>) bean).addRepositoryFactoryCustomizer(factory ->
+                            factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+                                Class<?> domainType = repositoryInformation.getDomainType();
+                                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                                    boolean inBatch = invocation.getMethod().getName().endsWith("InBatch");
+                                    Collection<Long> teamIds = inBatch && domainType == Member.class
+                                            ? affectedTeamIds(teamRepository.getObject(), invocation.getArguments())
+                                            : null;
+                                    Object result = invocation.proceed();
+                                    if (inBatch || invocation.getMethod().isAnnotationPresent(Modifying.class)) {
+                                        countCache.getObject().invalidate(domainType);
+                                        if (domainType == Member.class) {
+                                            usernameCache.getObject().clear();
+                                        }
+                                    }
+                                    if (inBatch && domainType == Member.class) {
+                                        recount(teamRepository.getObject(), teamIds);
+                                    }
+                                    return result;
+                                });
+                            }));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /* Teams of the members a *InBatch delete is about to remove: deleteAllByIdInBatch(ids),
+     * deleteAllInBatch(members) / deleteInBatch(members). Empty list: nothing to recount; null: deleteAllInBatch(), every team. */
+    private static Collection<Long> affectedTeamIds(TeamRepository teamRepository, Object[] arguments) {
+        if (arguments.length == 0) {
+            return null;
+        }
+        List<Long> memberIds = new ArrayList<>();
+        for (Object element : (Iterable<?>) arguments[0]) {
+            memberIds.add(element instanceof Member ? ((Member) element).getId() : (Long) element);
+        }
+        return memberIds.isEmpty() ? Collections.emptyList() : teamRepository.findIdsByMemberIds(memberIds);
+    }
+
+    private static void recount(TeamRepository teamRepository, Collection<Long> teamIds) {
+        if (teamIds == null) {
+            teamRepository.recountAllMembers();
+        } else if (!teamIds.isEmpty()) {
+            teamRepository.recountMembers(teamIds);
+        }
+    }
+}
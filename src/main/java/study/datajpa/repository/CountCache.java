@@ -0,0 +1,110 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/* Page total counts, cached per entity and query key (query name + parameters).
+ * Any write to the entity drops all of its counts: at the write and again after the transaction completes,
+ * so a count computed from the old committed state is not kept.
+ * A count whose computation overlapped a clear of its entity is returned but not cached (stamp, as MemberUsernameCache).
+ * One synchronization per transaction however many rows it writes (saveAllBatched keeps memory flat). */
+@Component
+public class CountCache {
+
+    private final Map<Class<?>, Map<String, Entry>> regions = new ConcurrentHashMap<>();
+    private final Map<Class<?>, AtomicLong> stamps = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public CountCache(@Value("${member.count.ttl:30s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public long get(Class<?> entityType, String key, LongSupplier counter) {
+        Map<String, Entry> region = regions.computeIfAbsent(entityType, type -> new ConcurrentHashMap<>());
+        long now = System.nanoTime();
+        Entry entry = region.get(key);
+        if (entry != null && now - entry.createdAt < ttlNanos) {
+            return entry.count;
+        }
+        AtomicLong stamp = stamp(entityType);
+        long stampBeforeCount = stamp.get();
+        long count = counter.getAsLong();
+        synchronized (stamp) { // no clear between the check and the put
+            if (stamp.get() == stampBeforeCount) {
+                region.put(key, new Entry(count, now));
+            }
+        }
+        return count;
+    }
+
+    public void invalidate(Class<?> entityType) {
+        clear(entityType);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PendingInvalidation pending = (PendingInvalidation) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingInvalidation();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.entityTypes.add(entityType);
+    }
+
+    private void clear(Class<?> entityType) {
+        AtomicLong stamp = stamp(entityType);
+        synchronized (stamp) {
+            stamp.incrementAndGet();
+            Map<String, Entry> region = regions.get(entityType);
+            if (region != null) {
+                region.clear();
+            }
+        }
+    }
+
+    private AtomicLong stamp(Class<?> entityType) {
+        return stamps.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+
+    // entity types written by the current transaction, cleared again when it completes
+    private final class PendingInvalidation implements TransactionSynchronization {
+
+        private final Set<Class<?>> entityTypes = new HashSet<>();
+
+        @Override
+        public void suspend() { // REQUIRES_NEW inside: the inner transaction gets its own
+            TransactionSynchronizationManager.unbindResource(CountCache.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(CountCache.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CountCache.this);
+            entityTypes.forEach(CountCache.this::clear);
+        }
+    }
+
+    private static final class Entry {
+        private final long count;
+        private final long createdAt;
+
+        private Entry(long count, long createdAt) {
+            this.count = count;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package study.datajpa.repository;
+
+// how the total of a Page is obtained
+public enum CountMode {
+    EXACT,      // count query on every request
+    CACHED,     // count query result cached by query and parameters, dropped on Member writes or after the TTL
+    ESTIMATED   // database statistics for the whole table; filtered queries fall back to CACHED
+}
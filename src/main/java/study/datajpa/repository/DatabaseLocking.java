@@ -0,0 +1,45 @@
+package study.datajpa.repository;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.dialect.internal.StandardDialectResolver;
+import org.hibernate.engine.jdbc.dialect.spi.DatabaseMetaDataDialectResolutionInfoAdapter;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+/* What the pessimistic lock clauses of the configured dialect can be used for on the connected database.
+ * The configured dialect (Oracle10gDialect) renders FOR UPDATE WAIT n / SKIP LOCKED, but the database here is H2,
+ * which only parses FOR UPDATE: those clauses are only emitted when the dialect matches the database. */
+@Component
+public class DatabaseLocking {
+
+	private final boolean dialectMatchesDatabase;
+	private final boolean h2;
+
+	public DatabaseLocking(EntityManagerFactory emf, DataSource dataSource) throws SQLException {
+		Dialect configured = emf.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+		try (Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData metaData = connection.getMetaData();
+			Dialect resolved = StandardDialectResolver.INSTANCE.resolveDialect(
+					new DatabaseMetaDataDialectResolutionInfoAdapter(metaData));
+			// same dialect, or configured for an older version of the same database (Oracle10g on Oracle 19)
+			this.dialectMatchesDatabase = resolved != null && configured.getClass().isInstance(resolved);
+			this.h2 = "H2".equals(metaData.getDatabaseProductName());
+		}
+	}
+
+	// WAIT n, SKIP LOCKED and NOWAIT reach the database as rendered by the dialect
+	public boolean lockClausesSupported() {
+		return dialectMatchesDatabase && !h2;
+	}
+
+	// H2 1.4: FOR UPDATE only, row lock waits bounded by the session's LOCK_TIMEOUT
+	public boolean isH2() {
+		return h2;
+	}
+}
@@ -0,0 +1,14 @@
+package study.datajpa.repository;
+
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface ItemRepositoryCustom {
+
+    // known-new keys: persist only, no existence check
+    int insertAll(Collection<Item> items, int batchSize);
+
+    // new and existing keys mixed: one MERGE per row, sent in JDBC batches. one int[] per batch
+    int[][] upsertAll(Collection<String> ids, int batchSize);
+}
@@ -0,0 +1,43 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    // insert the row if the id is new, otherwise only touch last_modified_date (create_date is kept)
+    private static final String UPSERT_SQL =
+            "merge into item t" +
+            " using (select cast(? as varchar(255)) as id, cast(? as timestamp) as ts from dual) s" +
+            " on (t.id = s.id)" +
+            " when matched then update set t.last_modified_date = s.ts" +
+            " when not matched then insert (id, create_date, last_modified_date) values (s.id, s.ts, s.ts)";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public int insertAll(Collection<Item> items, int batchSize) {
+        return BatchSession.persistAll(em, items, batchSize); // persist, not save(): merge() would select each id first
+    }
+
+    @Override
+    @Transactional
+    public int[][] upsertAll(Collection<String> ids, int batchSize) {
+        em.flush(); // pending Item changes must reach the table before the MERGE
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.batchUpdate(UPSERT_SQL, ids, batchSize, (ps, id) -> {
+            ps.setString(1, id);
+            ps.setTimestamp(2, now);
+        });
+    }
+}
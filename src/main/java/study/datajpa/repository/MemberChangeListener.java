@@ -0,0 +1,31 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+// Spring bean used as JPA entity listener (Hibernate SpringBeanContainer): keeps Member derived caches coherent
+@Component
+@RequiredArgsConstructor
+public class MemberChangeListener {
+
+    private final CountCache countCache;
+    private final MemberUsernameCache usernameCache;
+
+    @PostPersist
+    public void onPersist(Member member) {
+        countCache.invalidate(Member.class);
+        usernameCache.onPersist(member.getId(), member.getUsername());
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Member member) {
+        countCache.invalidate(Member.class);
+        usernameCache.onChange(member.getId(), member.getUsername());
+    }
+}
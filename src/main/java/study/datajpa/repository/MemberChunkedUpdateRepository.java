@@ -0,0 +1,131 @@
+package study.datajpa.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.BulkUpdateProgress;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+import java.util.Optional;
+
+/* Chunked bulk update.
+ * Instead of one UPDATE over the whole table, rows are updated by primary key ranges,
+ * each range in its own short transaction, so row locks are held for one chunk at a time.
+ * Progress is stored in BulkUpdateProgress: calling again with the same job name and age resumes after the last committed chunk. */
+@Slf4j
+@Repository
+public class MemberChunkedUpdateRepository {
+
+	@PersistenceContext
+	private EntityManager em;
+
+	private final TransactionTemplate chunkTx;
+	private final CountCache countCache;
+
+	@Value("${member.bulk.chunk-size:1000}")
+	private int defaultChunkSize;
+
+	@Value("${member.bulk.max-chunks-per-second:10}")
+	private double defaultMaxChunksPerSecond;
+
+	public MemberChunkedUpdateRepository(PlatformTransactionManager transactionManager, CountCache countCache) {
+		this.countCache = countCache;
+		this.chunkTx = new TransactionTemplate(transactionManager);
+		this.chunkTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	public BulkUpdateProgress bulkAgePlus(String jobName, int age) {
+		return bulkAgePlus(jobName, age, defaultChunkSize, defaultMaxChunksPerSecond);
+	}
+
+	/* same result as MemberJpaRepository.bulkAgePlus, one chunk of chunkSize ids per transaction.
+	 * maxChunksPerSecond <= 0: no throttling.
+	 * The caller's persistence context is cleared after each chunk, like @Modifying(clearAutomatically = true):
+	 * members it holds would otherwise keep their old age. */
+	public BulkUpdateProgress bulkAgePlus(String jobName, int age, int chunkSize, double maxChunksPerSecond) {
+		long interval = maxChunksPerSecond > 0 ? (long) (1000 / maxChunksPerSecond) : 0;
+
+		BulkUpdateProgress progress = chunkTx.execute(status -> start(jobName, age));
+		while (!progress.isCompleted()) {
+			long chunkStart = System.currentTimeMillis();
+
+			progress = chunkTx.execute(status -> runChunk(jobName, age, chunkSize));
+			if (TransactionSynchronizationManager.isActualTransactionActive()) {
+				em.clear(); // the caller's transaction, not the chunk's
+			}
+			log.info("bulkAgePlus {}: chunk {} done, lastId={}/{}, updated={}",
+					jobName, progress.getChunkCount(), progress.getLastId(), progress.getMaxId(), progress.getUpdatedCount());
+
+			throttle(interval - (System.currentTimeMillis() - chunkStart));
+		}
+		return progress;
+	}
+
+	public Optional<BulkUpdateProgress> findProgress(String jobName) {
+		return Optional.ofNullable(em.find(BulkUpdateProgress.class, jobName));
+	}
+
+	private BulkUpdateProgress start(String jobName, int age) {
+		BulkUpdateProgress progress = em.find(BulkUpdateProgress.class, jobName);
+		if (progress == null) {
+			Long maxId = em.createQuery("select max(m.id) from Member m", Long.class)
+					.getSingleResult();
+			progress = new BulkUpdateProgress(jobName, age, maxId);
+			em.persist(progress);
+		} else if (progress.getAge() != age) {
+			throw new IllegalArgumentException("bulk update job " + jobName + " was started with age " + progress.getAge()
+					+ ", cannot resume with age " + age);
+		}
+		return progress;
+	}
+
+	private BulkUpdateProgress runChunk(String jobName, int age, int chunkSize) {
+		// one worker per job: a second runner waits here instead of updating the same range twice
+		BulkUpdateProgress progress = em.find(BulkUpdateProgress.class, jobName, LockModeType.PESSIMISTIC_WRITE);
+
+		// upper id of this chunk: the chunkSize-th id after lastId
+		List<Long> upper = em.createQuery("select m.id from Member m" +
+						" where m.id > :lastId and m.id <= :maxId" +
+						" order by m.id", Long.class)
+				.setParameter("lastId", progress.getLastId())
+				.setParameter("maxId", progress.getMaxId())
+				.setFirstResult(chunkSize - 1)
+				.setMaxResults(1)
+				.getResultList();
+		Long toId = upper.isEmpty() ? progress.getMaxId() : upper.get(0);
+
+		int updated = em.createQuery(
+				"update Member m " +
+						"   set m.age = m.age + 1, m.version = m.version + 1, m.lastModifiedDate = current_timestamp " +
+						"   where m.age >= :age" +
+						"     and m.id > :fromId and m.id <= :toId")
+				.setParameter("age", age)
+				.setParameter("fromId", progress.getLastId())
+				.setParameter("toId", toId)
+				.executeUpdate();
+
+		progress.chunkDone(toId, updated);
+		countCache.invalidate(Member.class);
+		return progress;
+	}
+
+	private static void throttle(long sleepMillis) {
+		if (sleepMillis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(sleepMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("bulk update interrupted, resume with the same job name", e);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package study.datajpa.repository;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
 
@@ -14,11 +15,22 @@ public class MemberJpaRepository {
 	@PersistenceContext // springboot 컨테이너가 jpa의 영속성 컨텍스트인 EntityManager를 가져다 준다.
 	private EntityManager em;
 
+	@Autowired
+	private CountCache countCache;
+
 	public Member save(Member member) {
 		em.persist(member);
 		return member;
 	}
 
+	/* batch insert
+	 * flush and clear every batchSize members: each flush goes out as JDBC batches (hibernate.jdbc.batch_size)
+	 * and the persistence context never holds more than one batch.
+	 * Must run in a transaction. Entities managed before the call are detached too. */
+	public int saveAllBatched(Iterable<Member> members, int batchSize) {
+		return BatchSession.persistAll(em, members, batchSize);
+	}
+
 	public void delete(Member member) {
 		em.remove(member);
 	}
@@ -63,6 +75,25 @@ public class MemberJpaRepository {
 				.getResultList();
 	}
 
+	// keyset(seek) pagination: continue after the last (username, id) of the previous page instead of skipping offset rows
+	public List<Member> findByPageAfter(int age, String lastUsername, Long lastId, int limit) {
+		if (lastId == null) {
+			return em.createQuery("select m from Member m where m.age = :age order by m.username desc, m.id desc", Member.class)
+					.setParameter("age", age)
+					.setMaxResults(limit)
+					.getResultList();
+		}
+		return em.createQuery("select m from Member m" +
+						" where m.age = :age" +
+						"   and (m.username < :username or (m.username = :username and m.id < :id))" +
+						" order by m.username desc, m.id desc", Member.class)
+				.setParameter("age", age)
+				.setParameter("username", lastUsername)
+				.setParameter("id", lastId)
+				.setMaxResults(limit)
+				.getResultList();
+	}
+
 	public long totalCount(int age) {
 		return em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
 				.setParameter("age", age)
@@ -70,9 +101,10 @@ public class MemberJpaRepository {
 	}
 
 	public int bulkAgePlus(int age) {
+		countCache.invalidate(Member.class); // bulk update skips entity listeners
 		return em.createQuery(
 				"update Member m " +
-						"   set m.age = m.age + 1 " +
+						"   set m.age = m.age + 1, m.version = m.version + 1, m.lastModifiedDate = current_timestamp " +
 						"   where m.age >= :age")
 				.setParameter("age", age)
 				.executeUpdate();
@@ -1,18 +1,23 @@
 package study.datajpa.repository;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberVersionDto;
 import study.datajpa.entity.Member;
 
-import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
@@ -22,6 +27,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 
 	// @Query(name = "Member.findByUsername")
 	// Spring data JPA find named query by "domain class.method name"
+	@QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true")) // query cache (cache profile)
 	List<Member> findByUsername(@Param("username") String username);
 
 	@Query("select m from Member m where m.username = :username and m.age = :age")
@@ -36,9 +42,33 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 	@Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
 	List<MemberDto> findMemberDto();
 
-	// collection parameter binding
-	@Query("select m from Member m where m.username in :names")
-	List<Member> findByNames(@Param("names") Collection<String> names);
+	// DTO projection with paging - selects id, username, team name only: no entity, no dirty-check snapshot
+	@Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t where m.age = :age")
+	Slice<MemberDto> findMemberDtoSliceByAge(@Param("age") int age, Pageable pageable);
+
+	@Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+	Slice<MemberDto> findMemberDtoSliceBy(Pageable pageable);
+
+	// keyset scroll in id order - always called with PageRequest.of(0, size): the page starts right after lastId
+	@Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t" +
+			" where m.id > :lastId order by m.id")
+	Slice<MemberDto> findMemberDtoSliceAfter(@Param("lastId") long lastId, Pageable pageable);
+
+	@Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t" +
+			" where m.age = :age and m.id > :lastId order by m.id")
+	Slice<MemberDto> findMemberDtoSliceByAgeAfter(@Param("age") int age, @Param("lastId") long lastId, Pageable pageable);
+
+	@Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t where m.id = :id")
+	Optional<MemberDto> findMemberDtoById(@Param("id") Long id);
+
+	// conditional GET - validators without loading the entity
+	@Query("select new study.datajpa.dto.MemberVersionDto(m.id, m.username, m.version, m.lastModifiedDate) from Member m where m.id = :id")
+	Optional<MemberVersionDto> findMemberVersionDtoById(@Param("id") Long id);
+
+	// collection parameter binding - split into IN lists of member.in-clause.chunk-size (MemberRepositoryImpl)
+	default List<Member> findByNames(Collection<String> names) {
+		return findByNamesChunked(names);
+	}
 
 	// return type
 	Member findMemberByUsername(String username);
@@ -51,15 +81,60 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 	// slice
 	Slice<Member> findAsSliceByAge(int age, Pageable pageable);
 
+	// keyset(seek) pagination - always called with PageRequest.of(0, size): no offset scan, no count query
+	// (username, id) with null usernames last, the same order on every database
+	@Query("select m from Member m where m.age = :age order by m.username asc nulls last, m.id")
+	Slice<Member> findByAgeSeekStart(@Param("age") int age, Pageable pageable);
+
+	@Query("select m from Member m" +
+			" where m.age = :age" +
+			"   and (m.username > :username or (m.username = :username and m.id > :id) or m.username is null)" +
+			" order by m.username asc nulls last, m.id")
+	Slice<Member> findByAgeAfter(@Param("age") int age
+							   , @Param("username") String username
+							   , @Param("id") Long id
+							   , Pageable pageable);
+
+	// past the last named member: only members without username remain
+	@Query("select m from Member m where m.age = :age and m.username is null and m.id > :id order by m.id")
+	Slice<Member> findByAgeAfterNullUsername(@Param("age") int age, @Param("id") Long id, Pageable pageable);
+
+	Slice<Member> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+	// members of the given age ordered by (username, id), starting right after a USERNAME_ID cursor
+	default Slice<Member> seekByAge(int age, MemberCursor cursor, int size) {
+		cursor.requireOrdering(MemberCursor.Ordering.USERNAME_ID);
+		if (cursor.isStart()) {
+			return findByAgeSeekStart(age, PageRequest.of(0, size));
+		}
+		if (cursor.getUsername() == null) {
+			return findByAgeAfterNullUsername(age, cursor.getId(), PageRequest.of(0, size));
+		}
+		return findByAgeAfter(age, cursor.getUsername(), cursor.getId(), PageRequest.of(0, size));
+	}
+
+	// all members ordered by id, starting right after an ID cursor
+	default Slice<Member> seekAll(MemberCursor cursor, int size) {
+		cursor.requireOrdering(MemberCursor.Ordering.ID);
+		Long lastId = cursor.isStart() ? Long.MIN_VALUE : cursor.getId();
+		return findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, size));
+	}
+
+	// seekAll as the DTO projection: no entity, no lazy team load per row
+	default Slice<MemberDto> seekAllMemberDto(MemberCursor cursor, int size) {
+		cursor.requireOrdering(MemberCursor.Ordering.ID);
+		return findMemberDtoSliceAfter(cursor.isStart() ? Long.MIN_VALUE : cursor.getId(), PageRequest.of(0, size));
+	}
+
 	// count query separation
-	@Query(value = "select m from Member m left join m.team t"
-			, countQuery = "select count(m.username) from Member m")
-	Page<Member> findCountSeparationByAge(int age, Pageable pageable);
+	@Query(value = "select m from Member m left join m.team t where m.age = :age"
+			, countQuery = "select count(m) from Member m where m.age = :age")
+	Page<Member> findCountSeparationByAge(@Param("age") int age, Pageable pageable);
 
 	// bulk operation
 	@Modifying(clearAutomatically = true) // --> jpa's executeUpdate() call
 	@Query("update Member m " +
-			"   set m.age = :age " +
+			"   set m.age = :age, m.version = m.version + 1, m.lastModifiedDate = current_timestamp " + // bulk update skips @Version and auditing
 			"   where m.age >= :age")
 	int bulkAgePlus(@Param("age")int age);
 
@@ -79,12 +154,18 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 	@EntityGraph(attributePaths = {"team"})
 	List<Member> findEntityGraphByUsername(@Param("username")String username);
 
+	// async - runs on dbExecutor (DbExecutorConfig), the caller's thread is released
+	@Async("dbExecutor")
+	CompletableFuture<Member> findAsyncById(Long id);
+
+	@Async("dbExecutor")
+	@Query(value = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t"
+			, countQuery = "select count(m) from Member m")
+	CompletableFuture<Page<MemberDto>> findAsyncMemberDtoBy(Pageable pageable);
+
 	// jpa hint
+	@Transactional(readOnly = true) // routed to a replica when datasource.routing.enabled
 	@QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
 	Member findReadOnlyByUsername(String username);
 
-	// jpa lock
-	@Lock(LockModeType.PESSIMISTIC_WRITE)
-	List<Member> findLockByUsername(@Param("username") String username);
-
 }
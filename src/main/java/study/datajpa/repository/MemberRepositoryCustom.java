@@ -1,9 +1,45 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    // batch insert - flush and clear every batchSize members
+    int saveAllBatched(Iterable<Member> members, int batchSize);
+
+    // streaming read - must be closed, and consumed inside a transaction
+    Stream<MemberDto> streamMemberDto(int fetchSize);
+
+    // whole table split into id ranges, read concurrently (read-only transaction each), per-partition results reduced.
+    // identity must be neutral for reducer: it starts every partition
+    <R> R scanInParallel(int partitions, Function<Member, R> mapper, BinaryOperator<R> reducer, R identity);
+
+    // IN list lookup of any size: duplicates removed, one query per chunk, results merged
+    List<Member> findByNamesChunked(Collection<String> names);
+
+    // jpa lock - PESSIMISTIC_WRITE, gives up after member.lock.timeout where the database takes a lock timeout
+    List<Member> findLockByUsername(String username);
+
+    // work queue - locks up to limit members after afterId, skipping rows locked by other workers. Needs a transaction.
+    List<Member> claimNext(Long afterId, int limit);
+
+    // username -> ids from the near cache (MemberUsernameCache), members by id
+    List<Member> findByUsernameNearCached(String username);
+
+    // paging with cached or estimated total count
+    Page<Member> findAllWithCountMode(Pageable pageable, CountMode countMode);
+    Page<Member> findByAgeWithCountMode(int age, Pageable pageable, CountMode countMode);
+
+    // DTO projection (id, username, team name) with cached or estimated total count
+    Page<MemberDto> findMemberDtoWithCountMode(Pageable pageable, CountMode countMode);
 }
@@ -1,19 +1,72 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.LockOptions;
+import org.hibernate.Session;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.QueryHints;
 import org.springframework.beans.factory.annotation.Required;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.applySorting;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
 
+    private static final int H2_LOCK_TIMEOUT = 50200;      // ErrorCode.LOCK_TIMEOUT_1
+    private static final int H2_CONCURRENT_UPDATE = 90131; // ErrorCode.CONCURRENT_UPDATE_1
+
     // Spring automatically inject if only one construct exists.
     // @PersistenceContext
     private final EntityManager em;
+    private final CountCache countCache;
+    private final MemberUsernameCache usernameCache;
+    private final PlatformTransactionManager transactionManager;
+    private final ForkJoinPool scanPool;
+    private final DatabaseLocking databaseLocking;
+
+    @Value("${member.lock.timeout:3s}")
+    private Duration lockTimeout;
+
+    @Value("${member.in-clause.chunk-size:512}")
+    private int inClauseChunkSize;
+
+    @Value("${member.scan.page-size:1000}")
+    private int scanPageSize;
+
+    // table row estimate from database statistics (H2). Oracle: select num_rows from user_tables where table_name = 'MEMBER'
+    @Value("${member.count.estimate-sql:select row_count_estimate from information_schema.tables where table_name = 'MEMBER'}")
+    private String estimateSql;
 
     // @RequiredArgsConstructor
     /*public MemberRepositoryImpl(EntityManager em) {
@@ -25,4 +78,268 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        return BatchSession.persistAll(em, members, batchSize); // one JDBC batch per flush, persistence context stays small
+    }
+
+    /* Rows are read through a forward-only cursor, fetchSize rows per round-trip.
+     * DTO projection: nothing is put into the persistence context, so memory doesn't grow with the table. */
+    @Override
+    public Stream<MemberDto> streamMemberDto(int fetchSize) {
+        return em.createQuery("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                        " from Member m left join m.team t" +
+                        " order by m.id", MemberDto.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
+
+    /* Each partition runs in its own read-only transaction on a scanPool thread, so it gets its own EntityManager
+     * and connection (a replica when datasource.routing is enabled). Parallelism is bounded by member.scan.max-parallelism;
+     * extra partitions wait for a free thread. Inside a partition rows are paged by id and the context is cleared per page. */
+    @Override
+    public <R> R scanInParallel(int partitions, Function<Member, R> mapper, BinaryOperator<R> reducer, R identity) {
+        Object[] bounds = em.createQuery("select min(m.id), max(m.id) from Member m", Object[].class)
+                .getSingleResult();
+        if (bounds[0] == null) {
+            return identity;
+        }
+        long min = (Long) bounds[0];
+        long max = (Long) bounds[1];
+        int count = Math.max(1, partitions);
+        long step = Math.max(1, (max - min) / count + 1);
+
+        List<long[]> ranges = new ArrayList<>(count);
+        for (long from = min; from <= max; from += step) {
+            ranges.add(new long[]{from, Math.min(from + step - 1, max)});
+        }
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        try {
+            return scanPool.submit(() -> ranges.parallelStream()
+                            .map(range -> readOnly.execute(status -> scanRange(range[0], range[1], mapper, reducer, identity)))
+                            .reduce(identity, reducer))
+                    .get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("parallel scan interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("parallel scan failed", e.getCause());
+        }
+    }
+
+    private <R> R scanRange(long from, long to, Function<Member, R> mapper, BinaryOperator<R> reducer, R identity) {
+        R result = identity;
+        long afterId = from - 1;
+        while (true) {
+            List<Member> page = em.createQuery("select m from Member m where m.id > :afterId and m.id <= :to order by m.id", Member.class)
+                    .setParameter("afterId", afterId)
+                    .setParameter("to", to)
+                    .setHint(QueryHints.HINT_READONLY, true)
+                    .setMaxResults(scanPageSize)
+                    .getResultList();
+            for (Member member : page) {
+                result = reducer.apply(result, mapper.apply(member));
+            }
+            if (page.size() < scanPageSize) {
+                return result;
+            }
+            afterId = page.get(page.size() - 1).getId();
+            em.clear();
+        }
+    }
+
+    /* Oracle rejects more than 1000 IN elements, and every distinct list size is a new plan / statement cache entry.
+     * Chunks of inClauseChunkSize, padded to a power of two by hibernate.query.in_clause_parameter_padding. */
+    @Override
+    public List<Member> findByNamesChunked(Collection<String> names) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(names));
+        List<Member> result = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += inClauseChunkSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + inClauseChunkSize, distinct.size()));
+            result.addAll(em.createQuery("select m from Member m where m.username in :names", Member.class)
+                    .setParameter("names", chunk)
+                    .getResultList());
+        }
+        return result;
+    }
+
+    // FOR UPDATE WAIT n (Oracle). Databases the dialect doesn't match keep their own lock timeout (H2: LOCK_TIMEOUT)
+    @Override
+    public List<Member> findLockByUsername(String username) {
+        TypedQuery<Member> query = em.createNamedQuery("Member.findByUsername", Member.class)
+                .setParameter("username", username)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        if (databaseLocking.lockClausesSupported()) {
+            query.setHint(AvailableSettings.JPA_LOCK_TIMEOUT, lockTimeout.toMillis());
+        }
+        return query.getResultList();
+    }
+
+    /* FOR UPDATE SKIP LOCKED: workers never wait for each other, each gets a disjoint set of rows.
+     * No row limit in the SQL: with one, Oracle dialects lock by follow-on selects after an unlocked read, and every
+     * worker would get the same first rows. SKIP LOCKED locks rows as they are fetched, so reading stops at limit. */
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Member> claimNext(Long afterId, int limit) {
+        if (databaseLocking.isH2()) {
+            return claimNextTryLock(afterId, limit);
+        }
+        if (!databaseLocking.lockClausesSupported()) {
+            throw new IllegalStateException("SKIP LOCKED is not rendered for this database");
+        }
+        try (Stream<Member> rows = em.createQuery("select m from Member m where m.id > :afterId order by m.id", Member.class)
+                .setParameter("afterId", afterId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(AvailableSettings.JPA_LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .setHint(QueryHints.HINT_FETCH_SIZE, limit)
+                .getResultStream()) {
+            return rows.limit(limit).collect(Collectors.toList());
+        }
+    }
+
+    /* H2 1.4 has no SKIP LOCKED: candidates in id order, each locked with LOCK_TIMEOUT 0.
+     * A row another worker holds fails at once (statement-level error, the transaction goes on) and is skipped. */
+    private List<Member> claimNextTryLock(Long afterId, int limit) {
+        List<Long> ids = em.unwrap(Session.class).doReturningWork(connection -> {
+            List<Long> locked = new ArrayList<>(limit);
+            try (Statement settings = connection.createStatement()) {
+                int previousTimeout;
+                try (ResultSet timeout = settings.executeQuery("call lock_timeout()")) {
+                    timeout.next();
+                    previousTimeout = timeout.getInt(1);
+                }
+                settings.execute("set lock_timeout 0");
+                try (PreparedStatement candidates = connection.prepareStatement(
+                        "select member_id from member where member_id > ? order by member_id");
+                     PreparedStatement lock = connection.prepareStatement(
+                             "select member_id from member where member_id = ? for update")) {
+                    candidates.setLong(1, afterId);
+                    candidates.setFetchSize(limit);
+                    try (ResultSet rows = candidates.executeQuery()) {
+                        while (locked.size() < limit && rows.next()) {
+                            lock.setLong(1, rows.getLong(1));
+                            try (ResultSet row = lock.executeQuery()) {
+                                if (row.next()) { // deleted meanwhile: nothing to claim
+                                    locked.add(row.getLong(1));
+                                }
+                            } catch (SQLException e) {
+                                if (e.getErrorCode() != H2_LOCK_TIMEOUT && e.getErrorCode() != H2_CONCURRENT_UPDATE) {
+                                    throw e;
+                                }
+                            }
+                        }
+                    }
+                } finally {
+                    settings.execute("set lock_timeout " + previousTimeout);
+                }
+            }
+            return locked;
+        });
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createQuery("select m from Member m where m.id in :ids order by m.id", Member.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /* Cached ids skip the username lookup; em.find is served by the persistence context or the second-level cache.
+     * An id that no longer matches (e.g. insert rolled back) drops the entry and falls back to the query. */
+    @Override
+    public List<Member> findByUsernameNearCached(String username) {
+        List<Long> ids = usernameCache.get(username);
+        if (ids != null) {
+            List<Member> members = new ArrayList<>(ids.size());
+            for (Long id : ids) {
+                Member member = em.find(Member.class, id);
+                if (member == null || !username.equals(member.getUsername())) {
+                    usernameCache.evict(username);
+                    members = null;
+                    break;
+                }
+                members.add(member);
+            }
+            if (members != null) {
+                return members;
+            }
+        }
+
+        long stamp = usernameCache.stamp();
+        List<Member> members = em.createNamedQuery("Member.findByUsername", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+        usernameCache.put(username, members.stream().map(Member::getId).collect(Collectors.toList()), stamp);
+        return members;
+    }
+
+    @Override
+    public Page<Member> findAllWithCountMode(Pageable pageable, CountMode countMode) {
+        List<Member> content = em.createQuery(applySorting("select m from Member m", pageable.getSort(), "m"), Member.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // count query is skipped entirely when the content already tells the total (first or last page)
+        return PageableExecutionUtils.getPage(content, pageable, () -> countAll(countMode));
+    }
+
+    @Override
+    public Page<MemberDto> findMemberDtoWithCountMode(Pageable pageable, CountMode countMode) {
+        String jpql = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name)" +
+                " from Member m left join m.team t";
+        List<MemberDto> content = em.createQuery(applySorting(jpql, pageable.getSort(), "m"), MemberDto.class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> countAll(countMode));
+    }
+
+    @Override
+    public Page<Member> findByAgeWithCountMode(int age, Pageable pageable, CountMode countMode) {
+        List<Member> content = em.createQuery(applySorting("select m from Member m where m.age = :age", pageable.getSort(), "m"), Member.class)
+                .setParameter("age", age)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        LongSupplier exact = () -> em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                .setParameter("age", age)
+                .getSingleResult();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> countMode == CountMode.EXACT
+                ? exact.getAsLong()
+                : countCache.get(Member.class, "countByAge:" + age, exact));
+    }
+
+    private long countAll(CountMode countMode) {
+        LongSupplier exact = () -> em.createQuery("select count(m) from Member m", Long.class)
+                .getSingleResult();
+
+        switch (countMode) {
+            case ESTIMATED:
+                return estimate(exact);
+            case CACHED:
+                return countCache.get(Member.class, "count", exact);
+            default:
+                return exact.getAsLong();
+        }
+    }
+
+    private long estimate(LongSupplier fallback) {
+        List<?> result = em.createNativeQuery(estimateSql).getResultList();
+        if (result.isEmpty() || result.get(0) == null) {
+            return countCache.get(Member.class, "count", fallback);
+        }
+        return ((Number) result.get(0)).longValue();
+    }
 }
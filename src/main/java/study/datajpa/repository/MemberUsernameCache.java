@@ -0,0 +1,136 @@
+package study.datajpa.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/* In-process near cache: username -> member ids (username is not unique).
+ * Kept coherent by MemberChangeListener (persist/update/remove) and cleared by bulk @Modifying queries.
+ * A write that happens while a lookup is running makes that lookup's result uncacheable (stamp).
+ * Writes are flushed before commit, so the written usernames are evicted (and the stamp bumped) again when the
+ * transaction completes: a lookup that cached the old committed rows in between is not kept.
+ * Empty results are not cached: a member persisted by another transaction would otherwise stay invisible. */
+@Component
+public class MemberUsernameCache {
+
+    private final boolean enabled;
+    private final Map<String, List<Long>> idsByUsername;
+    private final Map<Long, String> usernameById = new HashMap<>();
+    private long stamp;
+
+    public MemberUsernameCache(@Value("${member.username-cache.enabled:false}") boolean enabled,
+                               @Value("${member.username-cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.idsByUsername = new LinkedHashMap<>(16, 0.75f, true) { // LRU
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Long>> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                eldest.getValue().forEach(usernameById::remove);
+                return true;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // null: not cached
+    public synchronized List<Long> get(String username) {
+        List<Long> ids = idsByUsername.get(username);
+        return ids == null ? null : new ArrayList<>(ids);
+    }
+
+    public synchronized long stamp() {
+        return stamp;
+    }
+
+    // caches the ids only if no member was written since stamp was taken
+    public synchronized void put(String username, List<Long> ids, long stampBeforeQuery) {
+        if (!enabled || ids.isEmpty() || stamp != stampBeforeQuery) {
+            return;
+        }
+        evict(username);
+        idsByUsername.put(username, new ArrayList<>(ids));
+        ids.forEach(id -> usernameById.put(id, username));
+    }
+
+    public void onPersist(Long id, String username) {
+        onChange(id, username);
+    }
+
+    // the old username is only known for cached ids, so both keys are dropped
+    public void onChange(Long id, String username) {
+        invalidate(id, username);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PendingEviction pending = (PendingEviction) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEviction();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.ids.add(id);
+        pending.usernames.add(username);
+    }
+
+    private synchronized void invalidate(Long id, String username) {
+        stamp++;
+        String oldUsername = usernameById.get(id);
+        if (oldUsername != null) {
+            evict(oldUsername);
+        }
+        evict(username);
+    }
+
+    public synchronized void evict(String username) {
+        List<Long> ids = idsByUsername.remove(username);
+        if (ids != null) {
+            ids.forEach(usernameById::remove);
+        }
+    }
+
+    public synchronized void clear() {
+        stamp++;
+        idsByUsername.clear();
+        usernameById.clear();
+    }
+
+    // members written by the current transaction, evicted again when it completes
+    private final class PendingEviction implements TransactionSynchronization {
+
+        private final Set<Long> ids = new HashSet<>();
+        private final Set<String> usernames = new HashSet<>();
+
+        @Override
+        public void suspend() { // REQUIRES_NEW inside: the inner transaction gets its own
+            TransactionSynchronizationManager.unbindResource(MemberUsernameCache.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(MemberUsernameCache.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(MemberUsernameCache.this);
+            synchronized (MemberUsernameCache.this) {
+                stamp++;
+                ids.forEach(id -> {
+                    String username = usernameById.get(id);
+                    if (username != null) {
+                        evict(username);
+                    }
+                });
+                usernames.forEach(MemberUsernameCache.this::evict);
+            }
+        }
+    }
+}
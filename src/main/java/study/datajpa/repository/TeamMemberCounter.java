@@ -0,0 +1,124 @@
+package study.datajpa.repository;
+
+import org.hibernate.FlushMode;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.internal.util.collections.ArrayHelper;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+
+/* Team.memberCount as atomic "member_count = member_count + delta" statements, never an absolute value from memory:
+ * concurrent transactions adding members to the same team both count.
+ * Member inserts, team changes and deletes executed by a flush are summed per team and applied at the end of that
+ * flush, one statement per touched team (in id order, so two writers lock team rows in the same order).
+ * Bulk statements and StatelessSession bypass these events: they recount (BulkUpdateInvalidationConfig,
+ * BatchSessionTemplate.executeStateless). */
+@Component
+public class TeamMemberCounter implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener,
+		FlushEventListener, AutoFlushEventListener {
+
+	private final EntityManagerFactory emf;
+	private final Map<SessionImplementor, Map<Long, Integer>> pending = Collections.synchronizedMap(new WeakHashMap<>());
+
+	public TeamMemberCounter(EntityManagerFactory emf) {
+		this.emf = emf;
+	}
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+		registry.appendListeners(EventType.FLUSH, this); // after the default listener has executed the statements
+		registry.appendListeners(EventType.AUTO_FLUSH, this);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (event.getEntity() instanceof Member) {
+			add(event.getSession(), teamId(event.getPersister(), event.getState()), 1);
+		}
+	}
+
+	// oldState is the flushed row; null only for Session.update of a detached member, which nothing here does
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (!(event.getEntity() instanceof Member) || event.getOldState() == null) {
+			return;
+		}
+		Long oldTeamId = teamId(event.getPersister(), event.getOldState());
+		Long newTeamId = teamId(event.getPersister(), event.getState());
+		if (!Objects.equals(oldTeamId, newTeamId)) {
+			add(event.getSession(), oldTeamId, -1);
+			add(event.getSession(), newTeamId, 1);
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if (event.getEntity() instanceof Member) {
+			add(event.getSession(), teamId(event.getPersister(), event.getDeletedState()), -1);
+		}
+	}
+
+	@Override
+	public void onFlush(FlushEvent event) {
+		apply(event.getSession());
+	}
+
+	@Override
+	public void onAutoFlush(AutoFlushEvent event) {
+		apply(event.getSession());
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return false;
+	}
+
+	private void add(SessionImplementor session, Long teamId, int delta) {
+		if (teamId != null) {
+			pending.computeIfAbsent(session, s -> new TreeMap<>()).merge(teamId, delta, Integer::sum);
+		}
+	}
+
+	private void apply(SessionImplementor session) {
+		Map<Long, Integer> deltas = pending.remove(session);
+		if (deltas == null) {
+			return;
+		}
+		deltas.forEach((teamId, delta) -> {
+			if (delta != 0) {
+				session.createNativeQuery("update team set member_count = member_count + :delta where team_id = :teamId")
+						.addSynchronizedEntityClass(Team.class) // evicts only the Team cache region
+						.setHibernateFlushMode(FlushMode.MANUAL)
+						.setParameter("delta", delta)
+						.setParameter("teamId", teamId)
+						.executeUpdate();
+			}
+		});
+	}
+
+	private static Long teamId(EntityPersister persister, Object[] state) {
+		Object team = state[ArrayHelper.indexOf(persister.getPropertyNames(), "team")];
+		if (team instanceof HibernateProxy) { // lazy Member.team: the id without initializing it
+			return (Long) ((HibernateProxy) team).getHibernateLazyInitializer().getIdentifier();
+		}
+		return team == null ? null : ((Team) team).getId();
+	}
+}
@@ -1,12 +1,45 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import study.datajpa.dto.TeamSizeDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TeamRepository extends JpaRepository<Team, Long> {
 
+	String RECOUNT_MEMBERS = "update team t set member_count = (select count(*) from member m where m.team_id = t.team_id)";
+
 	List<Member> findByName(String name);
+
+	// team size without loading the members collection
+	@Query("select t.memberCount from Team t where t.id = :id")
+	Optional<Integer> findMemberCountById(@Param("id") Long id);
+
+	// top-N largest teams - PageRequest.of(0, n), no count query (idx_team_member_count)
+	// a projection: a Team already in the persistence context would come back with its in-memory memberCount
+	@Query("select new study.datajpa.dto.TeamSizeDto(t.id, t.name, t.memberCount) from Team t order by t.memberCount desc, t.id")
+	List<TeamSizeDto> findLargest(Pageable pageable);
+
+	// teams of the given members, read before a batch delete of those members
+	@Query("select distinct m.team.id from Member m where m.id in :memberIds and m.team is not null")
+	List<Long> findIdsByMemberIds(@Param("memberIds") Collection<Long> memberIds);
+
+	/* Team.memberCount from the member table, for writes TeamMemberCounter doesn't see (bulk statements, native SQL).
+	 * Native: JPQL bulk updates lose the outer alias inside the subquery.
+	 * No clearAutomatically: the caller's persistence context stays, managed Teams keep their loaded memberCount. */
+	@Modifying(flushAutomatically = true)
+	@Query(value = RECOUNT_MEMBERS + " where t.team_id in :teamIds", nativeQuery = true)
+	int recountMembers(@Param("teamIds") Collection<Long> teamIds);
+
+	@Modifying(flushAutomatically = true)
+	@Query(value = RECOUNT_MEMBERS, nativeQuery = true)
+	int recountAllMembers();
 }
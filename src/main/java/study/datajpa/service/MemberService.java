@@ -0,0 +1,38 @@
+package study.datajpa.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.NoSuchElementException;
+
+/* Updates with optimistic locking (Member.version).
+ * On a version conflict the whole transaction is retried with exponential backoff:
+ * the retry is outside the transaction, so every attempt re-reads the current row. */
+@Service
+public class MemberService {
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate tx;
+
+    public MemberService(MemberRepository memberRepository, PlatformTransactionManager transactionManager) {
+        this.memberRepository = memberRepository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Retryable(value = OptimisticLockingFailureException.class,
+            maxAttemptsExpression = "${member.retry.max-attempts:3}",
+            backoff = @Backoff(delayExpression = "${member.retry.delay-ms:50}", multiplier = 2))
+    public void changeUsername(Long memberId, String username) {
+        tx.executeWithoutResult(status -> {
+            Member member = memberRepository.findById(memberId)
+                    .orElseThrow(() -> new NoSuchElementException("member " + memberId));
+            member.changeUserName(username);
+        });
+    }
+}
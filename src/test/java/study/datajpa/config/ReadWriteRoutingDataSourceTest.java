@@ -0,0 +1,79 @@
+package study.datajpa.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+// primary and two replicas as separate in-memory H2 databases: the JDBC URL tells where a connection came from
+class ReadWriteRoutingDataSourceTest {
+
+	HikariDataSource primary;
+	HikariDataSource replica0;
+	HikariDataSource replica1;
+	ReadWriteRoutingDataSource routing;
+
+	@BeforeEach
+	void setUp() {
+		primary = pool("primary");
+		replica0 = pool("replica0");
+		replica1 = pool("replica1");
+		routing = new ReadWriteRoutingDataSource(primary, Arrays.asList(replica0, replica1));
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		routing.destroy();
+	}
+
+	@Test
+	public void readWriteGoesToPrimary() throws SQLException {
+		try (Connection connection = routing.getConnection()) {
+			assertThat(url(connection)).isEqualTo("jdbc:h2:mem:primary");
+		}
+	}
+
+	@Test
+	public void readOnlyGoesToLeastLoadedReplica() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		try (Connection first = routing.getConnection();
+			 Connection second = routing.getConnection()) {
+			assertThat(url(first)).isEqualTo("jdbc:h2:mem:replica0");
+			assertThat(url(second)).isEqualTo("jdbc:h2:mem:replica1"); // replica0 has one active connection
+		}
+	}
+
+	@Test
+	public void unavailableReplicaFallsBackToPrimary() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		replica0.close();
+		replica1.close();
+
+		try (Connection connection = routing.getConnection()) {
+			assertThat(url(connection)).isEqualTo("jdbc:h2:mem:primary");
+		}
+	}
+
+	private static HikariDataSource pool(String name) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName(name);
+		dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUsername("sa");
+		dataSource.setMaximumPoolSize(2);
+		return dataSource;
+	}
+
+	private static String url(Connection connection) throws SQLException {
+		String url = connection.getMetaData().getURL();
+		return url.substring(0, url.indexOf(';') < 0 ? url.length() : url.indexOf(';'));
+	}
+}
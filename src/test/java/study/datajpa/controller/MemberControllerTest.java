@@ -0,0 +1,175 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberCursor;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.MemberService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// no test transaction: every request sees what the repositories committed
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+	@Autowired MockMvc mockMvc;
+	@Autowired ObjectMapper objectMapper;
+	@Autowired MemberRepository memberRepository;
+	@Autowired MemberService memberService;
+	@Autowired TransactionTemplate transactionTemplate;
+
+	@Value("${member.export.fetch-size}")
+	int exportFetchSize;
+
+	@Test
+	public void findMemberNotModified() throws Exception {
+		assertNotModifiedUntilUpdated("/members/{id}", "etag1");
+	}
+
+	@Test
+	public void findMember2NotModified() throws Exception {
+		assertNotModifiedUntilUpdated("/members2/{id}", "etag2");
+	}
+
+	@Test
+	public void listCompactRoundTrip() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			memberRepository.save(new Member("compact" + i, 1_000_001));
+		}
+
+		// when - the same page in both formats
+		JsonNode page = getJson("/members?page=0&size=2&sort=id&count=EXACT");
+		JsonNode compact = getJson("/members?page=0&size=2&sort=id&count=EXACT&format=compact");
+
+		// then
+		assertThat(compact.get("content")).isEqualTo(page.get("content"));
+		assertThat(compact.get("total").asLong()).isEqualTo(page.get("totalElements").asLong());
+		assertThat(compact.get("next").asInt()).isEqualTo(1);
+
+		JsonNode last = getJson("/members?page=" + (page.get("totalPages").asInt() - 1) + "&size=2&sort=id&count=EXACT&format=compact");
+		assertThat(last.get("next").isNull()).isTrue();
+	}
+
+	@Test
+	public void afterWinsOverCompactFormat() throws Exception {
+		JsonNode result = getJson("/members?after=&size=2&format=compact");
+
+		assertThat(result.has("hasNext")).isTrue(); // CursorResult, not the compact page
+		assertThat(result.has("total")).isFalse();
+	}
+
+	@Test
+	public void afterRejectsCursorOfAnotherOrdering() throws Exception {
+		String usernameCursor = MemberCursor.afterUsername("member1", 1L).encode();
+
+		mockMvc.perform(get("/members").param("after", usernameCursor))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void scrollContinuesAfterTheLastId() throws Exception {
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			members.add(memberRepository.save(new Member("scrollApi" + i, 1_000_003)));
+		}
+
+		JsonNode first = getJson("/members/scroll?age=1000003&size=2");
+		memberRepository.delete(members.get(0)); // an offset page 1 would now skip scrollApi2
+		JsonNode second = getJson("/members/scroll?token=" + first.get("next").asText());
+		JsonNode last = getJson("/members/scroll?token=" + second.get("next").asText());
+
+		assertThat(first.findValuesAsText("username")).containsExactly("scrollApi0", "scrollApi1");
+		assertThat(second.findValuesAsText("username")).containsExactly("scrollApi2", "scrollApi3");
+		assertThat(last.findValuesAsText("username")).containsExactly("scrollApi4");
+		assertThat(last.get("next").isNull()).isTrue();
+	}
+
+	@Test
+	public void exportStreamsEveryRow() throws Exception {
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i <= exportFetchSize; i++) { // more rows than one fetch
+			members.add(new Member("export" + i, 1_000_002));
+		}
+		memberRepository.saveAllBatched(members, 100);
+
+		// when
+		MockHttpServletResponse response = mockMvc.perform(get("/members/export").accept(MediaType.APPLICATION_NDJSON))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+				.andReturn().getResponse();
+
+		// then - one JSON object per line, every member
+		String[] lines = response.getContentAsString().split("\n");
+		assertThat(lines).hasSize((int) memberRepository.count());
+		Set<String> usernames = new HashSet<>();
+		for (String line : lines) {
+			JsonNode member = objectMapper.readTree(line);
+			assertThat(member.hasNonNull("id")).isTrue();
+			usernames.add(member.get("username").asText());
+		}
+		assertThat(usernames).contains("export0", "export" + exportFetchSize);
+	}
+
+	@Test
+	public void exportIsNotJson() throws Exception {
+		mockMvc.perform(get("/members/export").accept(MediaType.APPLICATION_JSON))
+				.andExpect(status().isNotAcceptable());
+	}
+
+	private JsonNode getJson(String uri) throws Exception {
+		String body = mockMvc.perform(get(uri))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readTree(body);
+	}
+
+	private void assertNotModifiedUntilUpdated(String uri, String username) throws Exception {
+		Member member = memberRepository.save(new Member(username, 1_000_000));
+
+		// 200 with an ETag
+		String eTag = mockMvc.perform(get(uri, member.getId()))
+				.andExpect(status().isOk())
+				.andExpect(content().string(username))
+				.andExpect(header().exists(HttpHeaders.ETAG))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		// still valid -> 304, no body
+		mockMvc.perform(get(uri, member.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		// an update bumps the version
+		memberService.changeUsername(member.getId(), username + "Changed");
+		String updatedETag = mockMvc.perform(get(uri, member.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+				.andExpect(status().isOk())
+				.andExpect(content().string(username + "Changed"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(updatedETag).isNotEqualTo(eTag);
+
+		// so does a bulk update (version = version + 1 in the statement)
+		transactionTemplate.executeWithoutResult(status -> memberRepository.bulkAgePlus(1_000_000));
+		String bulkETag = mockMvc.perform(get(uri, member.getId()).header(HttpHeaders.IF_NONE_MATCH, updatedETag))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(bulkETag).isNotEqualTo(updatedETag);
+	}
+}
@@ -0,0 +1,137 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+// statements are fed to QueryCounter the way the StatementInspector does; no database
+class RepositoryMetricsInterceptorTest {
+
+	interface SampleRepository {
+		List<String> findA();
+		List<String> findB();
+	}
+
+	MeterRegistry registry;
+	RepositoryMetricsInterceptor interceptor;
+	LazyLoadScope scope;
+
+	@BeforeEach
+	void setUp() {
+		registry = new SimpleMeterRegistry();
+		interceptor = new RepositoryMetricsInterceptor(
+				new StaticListableBeanFactory(Collections.singletonMap("registry", registry)).getBeanProvider(MeterRegistry.class),
+				SampleRepository.class, true);
+		scope = LazyLoadScope.open();
+	}
+
+	@AfterEach
+	void tearDown() {
+		scope.close();
+	}
+
+	@Test
+	public void selectPerRowInsideTheCall() throws Throwable {
+		call("findA", 3, "select * from member", "select * from team", "select * from team", "select * from team");
+
+		assertThat(flags("findA", "call")).isEqualTo(1);
+	}
+
+	@Test
+	public void writesFlushedByTheCallDontCount() throws Throwable {
+		// saveAll of 2 members with a team: sequence call, batched insert, team counter update
+		call("findA", 2, "select member_seq.nextval from dual", "insert into member", "update team set member_count");
+
+		assertThat(flags("findA", "call")).isZero();
+	}
+
+	@Test
+	public void fetchJoinIsOneSelect() throws Throwable {
+		call("findA", 3, "select m.*, t.* from member m join team t on m.team_id = t.team_id");
+		call("findB", 0);
+
+		assertThat(flags("findA", "call") + flags("findA", "lazy")).isZero();
+	}
+
+	@Test
+	public void batchFetchedLazyLoadsAreNotFlagged() throws Throwable {
+		call("findA", 3, "select * from member");
+		QueryCounter.statementPrepared("select * from team where team_id in (?, ?, ?)"); // default_batch_fetch_size
+		call("findB", 0);
+
+		assertThat(flags("findA", "lazy")).isZero();
+	}
+
+	@Test
+	public void lazyLoadsAreChargedToTheCallThatReturnedThem() throws Throwable {
+		call("findA", 3, "select * from member");
+		for (int i = 0; i < 3; i++) {
+			QueryCounter.statementPrepared("select * from team where team_id = ?");
+		}
+		call("findB", 1, "select * from member"); // settles findA first
+
+		assertThat(flags("findA", "lazy")).isEqualTo(1);
+		assertThat(flags("findB", "lazy") + flags("findB", "call")).isZero();
+	}
+
+	@Test
+	public void lazyLoadsAfterTheLastCallSettleWhenTheScopeCloses() throws Throwable {
+		call("findA", 2, "select * from member");
+		QueryCounter.statementPrepared("select * from team where team_id = ?");
+		QueryCounter.statementPrepared("select * from team where team_id = ?");
+
+		scope.close();
+
+		assertThat(flags("findA", "lazy")).isEqualTo(1);
+	}
+
+	private void call(String method, int rows, String... sqls) throws Throwable {
+		Method target = SampleRepository.class.getMethod(method);
+		interceptor.invoke(new MethodInvocation() {
+			@Override
+			public Method getMethod() {
+				return target;
+			}
+
+			@Override
+			public Object[] getArguments() {
+				return new Object[0];
+			}
+
+			@Override
+			public Object proceed() {
+				for (String sql : sqls) {
+					QueryCounter.statementPrepared(sql);
+				}
+				return Collections.nCopies(rows, "row");
+			}
+
+			@Override
+			public Object getThis() {
+				return null;
+			}
+
+			@Override
+			public AccessibleObject getStaticPart() {
+				return target;
+			}
+		});
+	}
+
+	private double flags(String method, String source) {
+		Counter counter = registry.find("repository.n_plus_one").tag("method", method).tag("source", source).counter();
+		return counter == null ? 0 : counter.count();
+	}
+}
@@ -0,0 +1,34 @@
+package study.datajpa.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+// real repository proxies: every saveAll commits inside the call (no test transaction)
+@SpringBootTest
+class RepositoryMetricsTest {
+
+	@Autowired MemberRepository memberRepository;
+	@Autowired TeamRepository teamRepository;
+	@Autowired MeterRegistry registry;
+
+	@Test
+	public void saveAllIsNotAnNPlusOne() {
+		Team team = teamRepository.save(new Team("metricsTeam"));
+
+		// when - sequence call, insert batch and team counter update, all flushed at commit inside the call
+		memberRepository.saveAll(List.of(new Member("metrics1", 10, team), new Member("metrics2", 10, team)));
+
+		// then
+		assertThat(registry.find("repository.n_plus_one").tag("method", "saveAll").counter()).isNull();
+	}
+}
@@ -0,0 +1,40 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import study.datajpa.entity.Member;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CountCacheTest {
+
+	CountCache countCache = new CountCache(Duration.ofMinutes(10));
+
+	@Test
+	public void cachedUntilInvalidated() {
+		AtomicInteger counts = new AtomicInteger();
+
+		countCache.get(Member.class, "count", () -> counts.incrementAndGet());
+		countCache.get(Member.class, "count", () -> counts.incrementAndGet());
+		countCache.invalidate(Member.class);
+		countCache.get(Member.class, "count", () -> counts.incrementAndGet());
+
+		assertThat(counts.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void countOverlappingAWriteIsNotCached() {
+		// when - a writer commits (afterCompletion clear) while the count query runs
+		long stale = countCache.get(Member.class, "count", () -> {
+			countCache.invalidate(Member.class);
+			return 10;
+		});
+		long fresh = countCache.get(Member.class, "count", () -> 11);
+
+		// then - the stale count was returned once, not served for the TTL
+		assertThat(stale).isEqualTo(10);
+		assertThat(fresh).isEqualTo(11);
+	}
+}
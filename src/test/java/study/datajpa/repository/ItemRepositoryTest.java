@@ -5,16 +5,58 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.datajpa.entity.Item;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 class ItemRepositoryTest {
 
 	@Autowired ItemRepository itemRepository;
+	@Autowired EntityManagerFactory emf;
 
 	@Test
 	public void save() {
 		Item item = new Item("A");
 		itemRepository.save(item);
  	}
-}
\ No newline at end of file
+
+	@Test
+	public void insertAll() {
+		// given
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			items.add(new Item("insert" + i));
+		}
+
+		try (StatisticsScope scope = StatisticsScope.start(emf)) {
+			// when
+			int count = itemRepository.insertAll(items, 50);
+
+			// then
+			assertThat(count).isEqualTo(100);
+			assertThat(scope.statistics().getEntityLoadCount()).isEqualTo(0);   // no select-before-merge
+			assertThat(scope.statistics().getEntityInsertCount()).isEqualTo(100);
+			assertThat(scope.statements()).isEqualTo(2); // one JDBC batch per 50 items
+		}
+	}
+
+	@Test
+	public void upsertAll() {
+		// given
+		itemRepository.insertAll(Arrays.asList(new Item("upsert1")), 50);
+
+		// when
+		int[][] batches = itemRepository.upsertAll(Arrays.asList("upsert1", "upsert2", "upsert3"), 2);
+
+		// then
+		assertThat(batches.length).isEqualTo(2); // 3 rows -> 2 JDBC batches, no per-row select
+		assertThat(itemRepository.findById("upsert1")).isPresent();
+		assertThat(itemRepository.findById("upsert3")).isPresent();
+		assertThat(itemRepository.findById("upsert1").get().getCreateDate()).isNotNull();
+	}
+}
@@ -0,0 +1,69 @@
+package study.datajpa.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+// own in-memory database: a second context with ddl-auto create would drop the tables (and sequences) of the main one
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:cache;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("cache")
+@Transactional
+class MemberCacheTest {
+
+	@Autowired MemberRepository memberRepository;
+	@PersistenceContext EntityManager em;
+
+	Statistics statistics;
+
+	@BeforeEach
+	public void before() {
+		statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	public void secondLevelCache() {
+		// given
+		Member member = memberRepository.save(new Member("member1", 10));
+		em.flush();
+		em.clear();
+
+		// when
+		memberRepository.findById(member.getId()); // miss -> put
+		em.clear();
+		memberRepository.findById(member.getId()); // hit
+
+		// then
+		CacheRegionStatistics region = statistics.getCacheRegionStatistics(Member.class.getName());
+		assertThat(region.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void bulkUpdateEvictsRegion() {
+		// given
+		Member member = memberRepository.save(new Member("member1", 10));
+		em.flush();
+		em.clear();
+		memberRepository.findById(member.getId());
+
+		// when
+		memberRepository.bulkAgePlus(10); // clearAutomatically + Member region eviction
+
+		// then
+		Member findMember = memberRepository.findById(member.getId()).get();
+		assertThat(findMember.getAge()).isEqualTo(10);
+		assertThat(statistics.getCacheRegionStatistics(Member.class.getName()).getHitCount()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,78 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.BulkUpdateProgress;
+import study.datajpa.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+// no test transaction: every chunk commits in its own transaction and must see committed members
+@SpringBootTest
+class MemberChunkedUpdateRepositoryTest {
+
+	@Autowired MemberChunkedUpdateRepository chunkedUpdateRepository;
+	@Autowired MemberRepository memberRepository;
+
+	@Test
+	public void bulkAgePlusResume() {
+		// given - ages no other test uses
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			ids.add(memberRepository.save(new Member("chunked" + i, 9500)).getId());
+		}
+
+		// when - "crash" after the first chunk: the throttle sleep is interrupted
+		Thread.currentThread().interrupt();
+		try {
+			assertThatThrownBy(() -> chunkedUpdateRepository.bulkAgePlus("resume", 9500, 2, 1))
+					.isInstanceOf(IllegalStateException.class);
+		} finally {
+			Thread.interrupted();
+		}
+		BulkUpdateProgress interrupted = chunkedUpdateRepository.findProgress("resume").get();
+
+		BulkUpdateProgress resumed = chunkedUpdateRepository.bulkAgePlus("resume", 9500, 2, 0);
+		BulkUpdateProgress again = chunkedUpdateRepository.bulkAgePlus("resume", 9500, 2, 0);
+
+		// then - every member updated exactly once across both runs
+		assertThat(interrupted.getChunkCount()).isEqualTo(1);
+		assertThat(resumed.isCompleted()).isTrue();
+		assertThat(resumed.getUpdatedCount()).isEqualTo(5);
+		assertThat(again.getChunkCount()).isEqualTo(resumed.getChunkCount());
+		for (Long id : ids) {
+			assertThat(memberRepository.findById(id).get().getAge()).isEqualTo(9501);
+		}
+	}
+
+	@Test
+	public void bulkAgePlusRejectsOtherAge() {
+		chunkedUpdateRepository.bulkAgePlus("otherAge", 9700, 1000, 0);
+
+		assertThatThrownBy(() -> chunkedUpdateRepository.bulkAgePlus("otherAge", 9600, 1000, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void bulkAgePlusChunkedAndThrottled() {
+		// given - threshold above every member: the chunks run but update nothing, other tests' rows stay as they are
+		memberRepository.save(new Member("throttled", 0));
+		long members = memberRepository.count();
+		int chunkSize = (int) Math.max(1, (members + 2) / 3); // about 3 chunks
+		long expectedChunks = (members + chunkSize - 1) / chunkSize;
+
+		// when
+		long start = System.currentTimeMillis();
+		BulkUpdateProgress progress = chunkedUpdateRepository.bulkAgePlus("throttled", 99999, chunkSize, 10); // 100ms per chunk
+		long elapsed = System.currentTimeMillis() - start;
+
+		// then
+		assertThat(progress.getChunkCount()).isEqualTo(expectedChunks);
+		assertThat(progress.getUpdatedCount()).isEqualTo(0);
+		assertThat(elapsed).isGreaterThanOrEqualTo((expectedChunks - 1) * 100);
+	}
+}
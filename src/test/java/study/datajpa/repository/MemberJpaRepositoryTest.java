@@ -16,6 +16,7 @@ import java.util.List;
 class MemberJpaRepositoryTest {
 
 	@Autowired MemberJpaRepository memberJpaRepository;
+	@Autowired BatchSessionTemplate batchSessionTemplate;
 
 	@Test
 	public void testMember() {
@@ -104,6 +105,44 @@ class MemberJpaRepositoryTest {
 		assertThat(totalCount).isEqualTo(6);
 	}
 
+	@Test
+	public void seekPaging() {
+		memberJpaRepository.save(new Member("member1", 76));
+		memberJpaRepository.save(new Member("member2", 76));
+		memberJpaRepository.save(new Member("member3", 76));
+		memberJpaRepository.save(new Member("member4", 76));
+		memberJpaRepository.save(new Member("member5", 76));
+
+		int age = 76;
+		int limit = 3;
+
+		// when
+		List<Member> first = memberJpaRepository.findByPageAfter(age, null, null, limit);
+		Member last = first.get(first.size() - 1);
+		List<Member> second = memberJpaRepository.findByPageAfter(age, last.getUsername(), last.getId(), limit);
+
+		// then
+		assertThat(first).extracting("username").containsExactly("member5", "member4", "member3");
+		assertThat(second).extracting("username").containsExactly("member2", "member1");
+	}
+
+	@Test
+	public void batchSession() {
+		long before = memberJpaRepository.count();
+
+		// when
+		int managed = batchSessionTemplate.execute(10, session -> {
+			for (int i = 0; i < 25; i++) {
+				session.persist(new Member("member" + i, i));
+			}
+			return session.managedEntityCount();
+		});
+
+		// then
+		assertThat(managed).isEqualTo(5); // cleared at 10 and 20
+		assertThat(memberJpaRepository.count()).isEqualTo(before + 25);
+	}
+
 	@Test
 	public void bulkUpdate() {
 		// given
@@ -0,0 +1,65 @@
+package study.datajpa.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+// no test transaction: locks are held by explicit transactions and contended from another thread
+@SpringBootTest
+class MemberLockRepositoryTest {
+
+	@Autowired MemberRepository memberRepository;
+	@Autowired TransactionTemplate transactionTemplate;
+
+	@Test
+	public void lockGivesUpInsteadOfWaiting() {
+		memberRepository.save(new Member("lockHeld", 10));
+
+		// when - another transaction asks for the row while it is locked
+		transactionTemplate.executeWithoutResult(status -> {
+			memberRepository.findLockByUsername("lockHeld");
+			CompletableFuture<List<Member>> waiter = CompletableFuture.supplyAsync(() ->
+					transactionTemplate.execute(s -> memberRepository.findLockByUsername("lockHeld")));
+
+			// then - it fails after the lock timeout rather than blocking until this transaction ends
+			assertThatThrownBy(() -> waiter.get(10, TimeUnit.SECONDS))
+					.hasCauseInstanceOf(DataAccessException.class);
+		});
+	}
+
+	@Test
+	public void claimNextNeedsTransaction() {
+		assertThatThrownBy(() -> memberRepository.claimNext(0L, 1))
+				.isInstanceOf(IllegalTransactionStateException.class);
+	}
+
+	@Test
+	public void claimNextConcurrentWorkers() {
+		Long afterId = memberRepository.save(new Member("claim0", 10)).getId();
+		Member claim1 = memberRepository.save(new Member("claim1", 10));
+		Member claim2 = memberRepository.save(new Member("claim2", 10));
+		Member claim3 = memberRepository.save(new Member("claim3", 10));
+		Member claim4 = memberRepository.save(new Member("claim4", 10));
+
+		transactionTemplate.executeWithoutResult(status -> {
+			// when - a second worker claims while the first still holds its rows
+			List<Member> first = memberRepository.claimNext(afterId, 2);
+			List<Member> second = CompletableFuture.supplyAsync(() ->
+					transactionTemplate.execute(s -> memberRepository.claimNext(afterId, 2))).join();
+
+			// then - disjoint sets in id order, the second worker didn't wait for the first
+			assertThat(first).extracting(Member::getId).containsExactly(claim1.getId(), claim2.getId());
+			assertThat(second).extracting(Member::getId).containsExactly(claim3.getId(), claim4.getId());
+		});
+	}
+}
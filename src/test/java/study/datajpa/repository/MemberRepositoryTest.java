@@ -1,24 +1,38 @@
 package study.datajpa.repository;
 
 import static org.assertj.core.api.Assertions.*;
+
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberCursor;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberVersionDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @SpringBootTest
 @Transactional
@@ -28,6 +42,9 @@ class MemberRepositoryTest {
 	@Autowired MemberRepository memberRepository;
 	@Autowired TeamRepository teamRepository;
 	@Autowired MemberQueryRepository memberQueryRepository;
+	@Autowired AssociationBatchLoader associationBatchLoader;
+	@Autowired TransactionTemplate transactionTemplate;
+	@Autowired BatchSessionTemplate batchSessionTemplate;
 
 	/*public MemberRepositoryTest(MemberQueryRepository memberQueryRepository) {
 		this.memberQueryRepository = memberQueryRepository;
@@ -169,6 +186,70 @@ class MemberRepositoryTest {
 	}
 
 
+	@Test
+	public void findMemberDtoProjection() {
+		Team teamA = new Team("teamA");
+		teamRepository.save(teamA);
+		Member m1 = memberRepository.save(new Member("dtoA", 10, teamA));
+		Member m2 = memberRepository.save(new Member("dtoB", 10));
+
+		// when - newest ids first: exactly the two members of this test, other tests' rows have smaller ids
+		Page<MemberDto> page = memberRepository.findMemberDtoWithCountMode(
+				PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")), CountMode.EXACT);
+		MemberDto dto1 = memberRepository.findMemberDtoById(m1.getId()).get();
+		MemberDto dto2 = memberRepository.findMemberDtoById(m2.getId()).get();
+
+		// then
+		assertThat(page.getContent()).extracting("username").containsExactly("dtoB", "dtoA");
+		assertThat(page.getContent()).extracting("teamName").containsExactly(null, "teamA");
+		assertThat(page.getTotalElements()).isEqualTo(memberRepository.count());
+		assertThat(dto1.getUsername()).isEqualTo("dtoA");
+		assertThat(dto1.getTeamName()).isEqualTo("teamA");
+		assertThat(dto2.getTeamName()).isNull();
+	}
+
+	@Test
+	public void findByUsernameNearCached() {
+		Member m1 = memberRepository.save(new Member("nearCached", 10));
+		em.flush();
+		memberRepository.findByUsernameNearCached("nearCached"); // query, ids cached
+
+		// when
+		Member m2 = memberRepository.save(new Member("nearCached", 20));
+		em.flush(); // @PostPersist evicts "nearCached", evicted again after commit
+		List<Member> result = memberRepository.findByUsernameNearCached("nearCached");
+
+		// then
+		assertThat(result).containsExactly(m1, m2);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED) // the writer commits while another thread reads
+	public void findByUsernameNearCachedAfterCommit() throws Exception {
+		assertThat(memberRepository.findByUsernameNearCached("nearCommitted")).isEmpty(); // empty: not cached
+		Member m1 = memberRepository.save(new Member("nearCommitted", 10));
+		Member m2 = memberRepository.save(new Member("nearRenamed", 10));
+
+		// when - a reader caches the committed rows while the rename is flushed but not committed
+		transactionTemplate.executeWithoutResult(status -> {
+			memberRepository.findById(m2.getId()).get().changeUserName("nearCommitted");
+			em.flush();
+			ExecutorService reader = Executors.newSingleThreadExecutor();
+			try {
+				List<Member> seen = reader.submit(() -> memberRepository.findByUsernameNearCached("nearCommitted")).get();
+				assertThat(seen).extracting(Member::getId).containsExactly(m1.getId());
+			} catch (InterruptedException | ExecutionException e) {
+				throw new IllegalStateException(e);
+			} finally {
+				reader.shutdown();
+			}
+		});
+		List<Member> result = memberRepository.findByUsernameNearCached("nearCommitted");
+
+		// then - evicted after commit, not served from the reader's entry
+		assertThat(result).extracting(Member::getId).containsExactlyInAnyOrder(m1.getId(), m2.getId());
+	}
+
 	// collection parameter binding
 	@Test
 	public void findByNamesTest() {
@@ -184,6 +265,40 @@ class MemberRepositoryTest {
 		}
 	}
 
+	@Test
+	public void findByNamesOverInListLimit() {
+		memberRepository.save(new Member("inList1", 10));
+		memberRepository.save(new Member("inList2", 20));
+
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 1500; i++) {
+			names.add("inList" + i); // more than Oracle's 1000 IN elements
+		}
+
+		// when
+		List<Member> result = memberRepository.findByNames(names);
+
+		// then
+		assertThat(result).extracting("username").containsExactlyInAnyOrder("inList1", "inList2");
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED) // partitions run in their own transactions: data must be committed
+	public void scanInParallel() {
+		long before = memberRepository.scanInParallel(4, m -> m.getAge() == 79 ? 1L : 0L, Long::sum, 0L);
+		for (int i = 0; i < 10; i++) {
+			memberRepository.save(new Member("scan" + i, 79));
+		}
+
+		// when
+		long after = memberRepository.scanInParallel(4, m -> m.getAge() == 79 ? 1L : 0L, Long::sum, 0L);
+		long total = memberRepository.scanInParallel(3, m -> 1L, Long::sum, 0L);
+
+		// then
+		assertThat(after - before).isEqualTo(10);
+		assertThat(total).isEqualTo(memberRepository.count());
+	}
+
 	// return type
 	@Test
 	public void returnTypeTest() {
@@ -278,6 +393,64 @@ class MemberRepositoryTest {
 		assertThat(page.hasNext()).isTrue();
 	}
 
+	// keyset pagination
+	@Test
+	public void seekPaging() {
+		memberRepository.save(new Member("member1", 77));
+		memberRepository.save(new Member("member2", 77));
+		memberRepository.save(new Member("member3", 77));
+		memberRepository.save(new Member("member4", 77));
+		memberRepository.save(new Member("member5", 77));
+		memberRepository.save(new Member("member6", 78));
+
+		int age = 77;
+
+		// when
+		Slice<Member> first = memberRepository.seekByAge(age, MemberCursor.decode(null, MemberCursor.Ordering.USERNAME_ID), 3);
+		Member last = first.getContent().get(2);
+		String cursor = MemberCursor.afterUsername(last.getUsername(), last.getId()).encode();
+		Slice<Member> second = memberRepository.seekByAge(age, MemberCursor.decode(cursor, MemberCursor.Ordering.USERNAME_ID), 3);
+
+		// then
+		assertThat(first.getContent()).extracting("username").containsExactly("member1", "member2", "member3");
+		assertThat(first.hasNext()).isTrue();
+		assertThat(second.getContent()).extracting("username").containsExactly("member4", "member5");
+		assertThat(second.hasNext()).isFalse();
+	}
+
+	@Test
+	public void seekPagingReachesNullUsernames() {
+		memberRepository.save(new Member(null, 75));
+		memberRepository.save(new Member("seekNull1", 75));
+		memberRepository.save(new Member(null, 75));
+
+		// when - one row per page
+		List<String> usernames = new ArrayList<>();
+		MemberCursor cursor = MemberCursor.start(MemberCursor.Ordering.USERNAME_ID);
+		Slice<Member> page;
+		do {
+			page = memberRepository.seekByAge(75, cursor, 1);
+			Member last = page.getContent().get(0);
+			usernames.add(last.getUsername());
+			cursor = MemberCursor.decode(MemberCursor.afterUsername(last.getUsername(), last.getId()).encode(),
+					MemberCursor.Ordering.USERNAME_ID);
+		} while (page.hasNext());
+
+		// then - named first, then the members without username
+		assertThat(usernames).containsExactly("seekNull1", null, null);
+	}
+
+	@Test
+	public void seekRejectsCursorOfAnotherOrdering() {
+		String idCursor = MemberCursor.afterId(1L).encode();
+
+		assertThatThrownBy(() -> MemberCursor.decode(idCursor, MemberCursor.Ordering.USERNAME_ID))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> memberRepository.seekByAge(77, MemberCursor.afterId(1L), 3))
+				.isInstanceOf(InvalidDataAccessApiUsageException.class) // repository proxy exception translation
+				.hasCauseInstanceOf(IllegalArgumentException.class);
+	}
+
 	// count query separation
 	@Test
 	public void countQuerySeparation() {
@@ -311,6 +484,41 @@ class MemberRepositoryTest {
 		assertThat(page.hasNext()).isTrue();
 	}
 
+	@Test
+	public void countInvalidationRegistersOnce() {
+		memberRepository.save(new Member("invalidate0", 10));
+		em.flush(); // @PostPersist -> CountCache.invalidate
+		int synchronizations = TransactionSynchronizationManager.getSynchronizations().size();
+
+		// when
+		for (int i = 1; i <= 50; i++) {
+			memberRepository.save(new Member("invalidate" + i, 10));
+		}
+		em.flush();
+
+		// then - one pending invalidation for the whole transaction, not one per written row
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(synchronizations);
+	}
+
+	// cached total count
+	@Test
+	public void cachedCount() {
+		memberRepository.save(new Member("member1", 88));
+		memberRepository.save(new Member("member2", 88));
+		memberRepository.save(new Member("member3", 88));
+
+		PageRequest pageRequest = PageRequest.of(0, 2, Sort.Direction.DESC, "username");
+
+		// when
+		Page<Member> page = memberRepository.findByAgeWithCountMode(88, pageRequest, CountMode.CACHED);
+		memberRepository.save(new Member("member4", 88)); // Member write -> cached counts dropped
+		Page<Member> pageAfterSave = memberRepository.findByAgeWithCountMode(88, pageRequest, CountMode.CACHED);
+
+		// then
+		assertThat(page.getTotalElements()).isEqualTo(3);
+		assertThat(pageAfterSave.getTotalElements()).isEqualTo(4);
+	}
+
 	// bulk operation
 	@Test
 	public void bulkUpdate() {
@@ -334,6 +542,192 @@ class MemberRepositoryTest {
 		assertThat(resultCount).isEqualTo(3);
 	}
 
+	@Test
+	public void bulkUpdateBumpsVersion() {
+		// given
+		Member member = memberRepository.save(new Member("etag1", 9100));
+		em.flush();
+		MemberVersionDto before = memberRepository.findMemberVersionDtoById(member.getId()).get();
+
+		// when
+		memberRepository.bulkAgePlus(9100);
+
+		// then - ETag of /members/{id} changes although no entity was loaded
+		MemberVersionDto after = memberRepository.findMemberVersionDtoById(member.getId()).get();
+		assertThat(after.getUsername()).isEqualTo("etag1");
+		assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1);
+		assertThat(MemberVersionDto.eTag(after.getVersion())).isNotEqualTo(MemberVersionDto.eTag(before.getVersion()));
+	}
+
+	// batch insert
+	@Test
+	public void saveAllBatched() {
+		// given
+		memberRepository.save(new Member("warmup", 0)); // id generator initialized, pooled blocks from here on
+		em.flush();
+
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			members.add(new Member("member" + i, i));
+		}
+
+		try (StatisticsScope scope = StatisticsScope.start(em.getEntityManagerFactory())) {
+			// when
+			int savedCount = memberRepository.saveAllBatched(members, 20);
+
+			// then
+			// member_seq is called once per pooled block (allocationSize 50): 1..51 first, then blocks opening at 52, 102, ...
+			long sequenceCalls = members.stream().filter(member -> member.getId() > 51 && member.getId() % 50 == 2).count();
+			assertThat(savedCount).isEqualTo(100);
+			assertThat(scope.statistics().getEntityInsertCount()).isEqualTo(100);
+			assertThat(sequenceCalls).isBetween(1L, 2L);
+			// 5 insert batches + the block fetches, instead of 100 inserts + 100 sequence calls
+			assertThat(scope.statements()).isEqualTo(5 + sequenceCalls);
+		}
+	}
+
+	@Test
+	public void scrollWithoutCount() {
+		// given
+		for (int i = 0; i < 5; i++) {
+			memberRepository.save(new Member("scroll" + i, 9200));
+		}
+		em.flush();
+		em.clear();
+
+		try (StatisticsScope scope = StatisticsScope.start(em.getEntityManagerFactory())) {
+			// when
+			Slice<MemberDto> first = memberRepository.findMemberDtoSliceByAge(9200, PageRequest.of(0, 3, Sort.by("id")));
+			Slice<MemberDto> last = memberRepository.findMemberDtoSliceByAge(9200, PageRequest.of(1, 3, Sort.by("id")));
+			Slice<MemberDto> all = memberRepository.findMemberDtoSliceBy(PageRequest.of(0, 3, Sort.by("id")));
+
+			// then - one select per slice, no count query
+			assertThat(first.getContent()).extracting("username").containsExactly("scroll0", "scroll1", "scroll2");
+			assertThat(first.hasNext()).isTrue();
+			assertThat(last.getContent()).extracting("username").containsExactly("scroll3", "scroll4");
+			assertThat(last.hasNext()).isFalse();
+			assertThat(all.getContent()).hasSize(3);
+			assertThat(scope.statements()).isEqualTo(3);
+		}
+	}
+
+	@Test
+	public void teamMemberCount() {
+		// given
+		Team teamA = teamRepository.save(new Team("countTeamA"));
+		Team teamB = teamRepository.save(new Team("countTeamB"));
+		Member member1 = memberRepository.save(new Member("count1", 10, teamA));
+		memberRepository.save(new Member("count2", 10, teamA));
+		memberRepository.save(new Member("count3", 10, teamB));
+		em.flush();
+		em.clear();
+
+		// when
+		Member moved = memberRepository.findById(member1.getId()).get();
+		moved.changeTeam(teamRepository.findById(teamB.getId()).get());
+		memberRepository.delete(memberRepository.findByUsername("count3").get(0));
+		em.flush();
+		em.clear();
+
+		// then
+		assertThat(teamRepository.findMemberCountById(teamA.getId())).contains(1);
+		assertThat(teamRepository.findMemberCountById(teamB.getId())).contains(1);
+		Team teamAFound = teamRepository.findById(teamA.getId()).get();
+		assertThat(Hibernate.isInitialized(teamAFound.getMembers())).isFalse();
+	}
+
+	@Test
+	public void teamMemberCountAfterBatchInsert() {
+		// given
+		Team team = teamRepository.save(new Team("countTeamC"));
+		em.flush();
+		em.clear();
+		Team detached = teamRepository.findById(team.getId()).get();
+		em.clear(); // members below are added to a detached team
+
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			members.add(new Member("countBatch" + i, 10, detached));
+		}
+
+		// when
+		memberRepository.saveAllBatched(members, 20);
+
+		// then
+		assertThat(teamRepository.findMemberCountById(team.getId())).contains(30);
+		assertThat(teamRepository.findLargest(PageRequest.of(0, 1)).get(0).getMemberCount()).isGreaterThanOrEqualTo(30);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED) // two transactions commit
+	public void teamMemberCountConcurrentTransactions() {
+		Team team = teamRepository.save(new Team("countTeamD"));
+		TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+		requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		// when - both load the team before either adds a member
+		transactionTemplate.executeWithoutResult(status -> {
+			Team stale = teamRepository.findById(team.getId()).get();
+			requiresNew.executeWithoutResult(inner ->
+					memberRepository.save(new Member("countConcurrent1", 10, teamRepository.findById(team.getId()).get())));
+			memberRepository.save(new Member("countConcurrent2", 10, stale));
+		});
+
+		// then - deltas, not the stale in-memory count: no update lost
+		assertThat(teamRepository.findMemberCountById(team.getId())).contains(2);
+	}
+
+	@Test
+	public void teamMemberCountInBatchSession() {
+		Team team = teamRepository.save(new Team("countTeamE"));
+		em.flush();
+		em.clear();
+
+		// when - the team is detached by the first flush-and-clear
+		batchSessionTemplate.execute(2, session -> {
+			Team loaded = session.find(Team.class, team.getId());
+			for (int i = 0; i < 5; i++) {
+				session.persist(new Member("countSession" + i, 10, loaded));
+			}
+			return null;
+		});
+
+		// then
+		assertThat(teamRepository.findMemberCountById(team.getId())).contains(5);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED) // the stateless session has its own transaction
+	public void teamMemberCountAfterStatelessInsert() {
+		Team team = teamRepository.save(new Team("countTeamF"));
+
+		// when
+		batchSessionTemplate.executeStateless(session -> {
+			for (int i = 0; i < 3; i++) {
+				session.insert(new Member("countStateless" + i, 10, team));
+			}
+			return null;
+		});
+
+		// then
+		assertThat(teamRepository.findMemberCountById(team.getId())).contains(3);
+	}
+
+	@Test
+	public void teamMemberCountAfterDeleteInBatch() {
+		Team team = teamRepository.save(new Team("countTeamG"));
+		Member member1 = memberRepository.save(new Member("countDelete1", 10, team));
+		memberRepository.save(new Member("countDelete2", 10, team));
+		em.flush();
+
+		// when
+		memberRepository.deleteAllByIdInBatch(List.of(member1.getId()));
+
+		// then - only the member's team recounted, the persistence context kept
+		assertThat(teamRepository.findMemberCountById(team.getId())).contains(1);
+		assertThat(em.contains(team)).isTrue();
+	}
+
 	// @EntityGraph
 	// before and after overriding
 	@Test
@@ -396,6 +790,34 @@ class MemberRepositoryTest {
 		}
 	}
 
+	// batch loading of lazy associations
+	@Test
+	public void batchLoadTeams() {
+		// given
+		for (int i = 0; i < 3; i++) {
+			Team team = teamRepository.save(new Team("team" + i));
+			memberRepository.save(new Member("batch" + i + "a", 10, team));
+			memberRepository.save(new Member("batch" + i + "b", 10, team));
+		}
+		em.flush();
+		em.clear();
+
+		List<Member> members = memberRepository.findByNames( // team is a proxy
+				Arrays.asList("batch0a", "batch0b", "batch1a", "batch1b", "batch2a", "batch2b"));
+
+		try (StatisticsScope scope = StatisticsScope.start(em.getEntityManagerFactory())) {
+			// when
+			Map<Long, Team> teams = associationBatchLoader.loadTeams(members);
+			for (Member member : members) {
+				member.getTeam().getName();
+			}
+
+			// then
+			assertThat(teams).hasSize(3);
+			assertThat(scope.statements()).isEqualTo(1); // one IN query, not one per team
+		}
+	}
+
 	// JPA hint
 	@Test
 	public void queryHint() {
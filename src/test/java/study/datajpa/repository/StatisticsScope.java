@@ -0,0 +1,40 @@
+package study.datajpa.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+
+/* Hibernate statistics for the body of a try-with-resources block.
+ * Statistics belong to the session factory of the cached test context: close() restores the previous state
+ * even when an assertion fails, so later tests are not affected. */
+final class StatisticsScope implements AutoCloseable {
+
+	private final Statistics statistics;
+	private final boolean wasEnabled;
+
+	private StatisticsScope(Statistics statistics) {
+		this.statistics = statistics;
+		this.wasEnabled = statistics.isStatisticsEnabled();
+		statistics.clear();
+		statistics.setStatisticsEnabled(true);
+	}
+
+	static StatisticsScope start(EntityManagerFactory emf) {
+		return new StatisticsScope(emf.unwrap(SessionFactory.class).getStatistics());
+	}
+
+	Statistics statistics() {
+		return statistics;
+	}
+
+	// JDBC statements prepared since start (one per batch for batched inserts)
+	long statements() {
+		return statistics.getPrepareStatementCount();
+	}
+
+	@Override
+	public void close() {
+		statistics.setStatisticsEnabled(wasEnabled);
+	}
+}
@@ -0,0 +1,55 @@
+package study.datajpa.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+// no test transaction: every changeUsername attempt commits on its own
+@SpringBootTest
+class MemberServiceTest {
+
+	@Autowired MemberService memberService;
+	@Autowired MemberRepository memberRepository;
+
+	@Test
+	public void changeUsernameRetriesConflicts() throws Exception {
+		Member member = memberRepository.save(new Member("retry", 10));
+		Long version = memberRepository.findById(member.getId()).get().getVersion();
+
+		// when - 3 writers at once: a writer loses at most twice, max-attempts is 3
+		CountDownLatch start = new CountDownLatch(1);
+		List<CompletableFuture<Void>> writers = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			String username = "retry" + i;
+			writers.add(CompletableFuture.runAsync(() -> {
+				awaitQuietly(start);
+				memberService.changeUsername(member.getId(), username);
+			}));
+		}
+		start.countDown();
+		CompletableFuture.allOf(writers.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+		// then - no update lost: every writer committed once on top of the previous one
+		Member result = memberRepository.findById(member.getId()).get();
+		assertThat(result.getVersion()).isEqualTo(version + 3);
+		assertThat(result.getUsername()).isIn("retry0", "retry1", "retry2");
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}